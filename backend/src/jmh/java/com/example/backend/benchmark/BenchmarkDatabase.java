@@ -0,0 +1,38 @@
+package com.example.backend.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * 基准测试使用的本地数据库连接，连接信息通过环境变量覆盖：
+ * BENCH_JDBC_URL / BENCH_JDBC_USER / BENCH_JDBC_PASSWORD
+ */
+final class BenchmarkDatabase {
+    private static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/ai?useSSL=false&serverTimezone=Asia/Shanghai"
+            + "&characterEncoding=utf8&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true";
+
+    private BenchmarkDatabase() {
+    }
+
+    static Connection connect() throws SQLException {
+        return DriverManager.getConnection(url(), user(), password());
+    }
+
+    static String url() {
+        return env("BENCH_JDBC_URL", DEFAULT_URL);
+    }
+
+    static String user() {
+        return env("BENCH_JDBC_USER", "root");
+    }
+
+    static String password() {
+        return env("BENCH_JDBC_PASSWORD", "123456");
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
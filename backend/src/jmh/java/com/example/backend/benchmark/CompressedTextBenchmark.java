@@ -0,0 +1,165 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.model.CompressedTextConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大文本列压缩前后的读取延迟（每页耗时）与行大小对比：
+ * plainText 读取 TEXT 列中的原文；compressed 读取 BLOB 列并经 CompressedTextConverter 解压。
+ * 数据写入临时表 text_bench_plain / text_bench_compressed，结束时打印两表的数据页大小和平均行长。
+ * 文本由固定词表随机拼接，压缩比接近真实的新闻摘要与 AI 研判，而不是重复字符的极端情况。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CompressedTextBenchmark {
+    private static final int PAGE_SIZE = 20;
+    private static final String[] WORDS = {
+            "bitcoin", "ethereum", "solana", "market", "volatility", "liquidity", "inflow", "outflow", "funding",
+            "rate", "support", "resistance", "breakout", "whale", "exchange", "reserve", "regulation", "ETF",
+            "approval", "risk", "portfolio", "rebalance", "allocation", "drawdown", "momentum", "trend", "bullish",
+            "bearish", "neutral", "signal", "on-chain", "staking", "yield", "stablecoin", "peg", "treasury",
+            "macro", "CPI", "Fed", "the", "a", "of", "and", "to", "in", "with", "after", "amid", "suggests",
+            "increase", "reduce", "hold", "position", "exposure", "weekly", "daily", "percent", "since"};
+
+    @Param({"20000"})
+    private int rows;
+
+    @Param({"600", "4000"})
+    private int textLength;
+
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+    private Connection connection;
+    private PreparedStatement plainPage;
+    private PreparedStatement compressedPage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        connection = BenchmarkDatabase.connect();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS text_bench_plain");
+            statement.execute("DROP TABLE IF EXISTS text_bench_compressed");
+            statement.execute("CREATE TABLE text_bench_plain (id BIGINT PRIMARY KEY, body TEXT)"
+                    + " CHARACTER SET = utf8mb4");
+            statement.execute("CREATE TABLE text_bench_compressed (id BIGINT PRIMARY KEY, body BLOB)");
+        }
+        seed();
+        plainPage = connection.prepareStatement("SELECT body FROM text_bench_plain WHERE id > ? ORDER BY id LIMIT ?");
+        compressedPage = connection.prepareStatement(
+                "SELECT body FROM text_bench_compressed WHERE id > ? ORDER BY id LIMIT ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        plainPage.close();
+        compressedPage.close();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE text_bench_plain, text_bench_compressed");
+            try (ResultSet rs = statement.executeQuery("SELECT TABLE_NAME, DATA_LENGTH, AVG_ROW_LENGTH"
+                    + " FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE()"
+                    + " AND TABLE_NAME IN ('text_bench_plain', 'text_bench_compressed')")) {
+                while (rs.next()) {
+                    System.out.printf("%n%s (textLength=%d): data_length=%d bytes, avg_row_length=%d bytes%n",
+                            rs.getString(1), textLength, rs.getLong(2), rs.getLong(3));
+                }
+            }
+            statement.execute("DROP TABLE IF EXISTS text_bench_plain");
+            statement.execute("DROP TABLE IF EXISTS text_bench_compressed");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public long plainText() throws Exception {
+        long checksum = 0;
+        try (ResultSet rs = page(plainPage)) {
+            while (rs.next()) {
+                checksum += rs.getString(1).length();
+            }
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public long compressed() throws Exception {
+        long checksum = 0;
+        try (ResultSet rs = page(compressedPage)) {
+            while (rs.next()) {
+                checksum += converter.convertToEntityAttribute(rs.getBytes(1)).length();
+            }
+        }
+        return checksum;
+    }
+
+    private ResultSet page(PreparedStatement statement) throws Exception {
+        statement.setLong(1, ThreadLocalRandom.current().nextInt(rows - PAGE_SIZE));
+        statement.setInt(2, PAGE_SIZE);
+        return statement.executeQuery();
+    }
+
+    private void seed() throws Exception {
+        Random random = new Random(42);
+        connection.setAutoCommit(false);
+        try (PreparedStatement plain = connection.prepareStatement("INSERT INTO text_bench_plain VALUES (?, ?)");
+             PreparedStatement compressed = connection.prepareStatement(
+                     "INSERT INTO text_bench_compressed VALUES (?, ?)")) {
+            long rawBytes = 0;
+            long storedBytes = 0;
+            for (int i = 1; i <= rows; i++) {
+                String text = randomText(random);
+                byte[] encoded = converter.convertToDatabaseColumn(text);
+                rawBytes += text.getBytes(StandardCharsets.UTF_8).length;
+                storedBytes += encoded.length;
+                plain.setLong(1, i);
+                plain.setString(2, text);
+                plain.addBatch();
+                compressed.setLong(1, i);
+                compressed.setBytes(2, encoded);
+                compressed.addBatch();
+                if (i % 500 == 0) {
+                    plain.executeBatch();
+                    compressed.executeBatch();
+                    connection.commit();
+                }
+            }
+            plain.executeBatch();
+            compressed.executeBatch();
+            connection.commit();
+            System.out.printf("%nencoded column bytes (textLength=%d): raw=%d, stored=%d, ratio=%.2f%n",
+                    textLength, rawBytes, storedBytes, (double) rawBytes / storedBytes);
+        }
+        connection.setAutoCommit(true);
+    }
+
+    private String randomText(Random random) {
+        StringBuilder text = new StringBuilder(textLength + 16);
+        while (text.length() < textLength) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(12) == 0 ? ". " : " ");
+        }
+        return text.toString();
+    }
+}
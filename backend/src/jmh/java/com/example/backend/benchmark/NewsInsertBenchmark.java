@@ -0,0 +1,166 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.model.CompressedTextConverter;
+import com.example.backend.model.News;
+import com.example.backend.model.SentimentType;
+import com.example.backend.repository.NewsRepository;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * news 插入吞吐对比（行/秒），两种写法都经过 Hibernate，使用 application.yml 中的 JPA 配置：
+ * identityPerRow 为改造前的映射 —— GenerationType.IDENTITY（IdentityNews，同一张 news 表），
+ * Hibernate 必须逐行 INSERT 并取回自增主键，无法批量；
+ * pooledBatched 为现行映射 —— News 通过 id_generator 号段分配主键，NewsRepository.saveAll 按 batch_size 批量发送。
+ * 每次调用在一个事务内写入 ROWS 行，结束时删除基准写入的行
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class NewsInsertBenchmark {
+    private static final int ROWS = 1000;
+    private static final String TITLE_PREFIX = "bench-insert ";
+
+    private ConfigurableApplicationContext context;
+    private NewsRepository newsRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpaOnly.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=" + BenchmarkDatabase.url(),
+                        "spring.datasource.username=" + BenchmarkDatabase.user(),
+                        "spring.datasource.password=" + BenchmarkDatabase.password())
+                .run();
+        newsRepository = context.getBean(NewsRepository.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                context.getBean(EntityManagerFactory.class));
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.getBean(JdbcTemplate.class).update("DELETE FROM news WHERE title LIKE ?", TITLE_PREFIX + "%");
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void identityPerRow() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ROWS; i++) {
+                IdentityNews news = new IdentityNews();
+                news.title = TITLE_PREFIX + sequence++;
+                news.summary = "bench summary " + sequence;
+                news.coin = "BTC";
+                news.sentiment = SentimentType.NEUTRAL;
+                news.sourceUrl = "https://example.com/";
+                news.publishedAt = LocalDateTime.now();
+                news.read = false;
+                entityManager.persist(news);
+            }
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void pooledBatched() {
+        List<News> batch = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(News.builder()
+                    .title(TITLE_PREFIX + sequence++)
+                    .summary("bench summary " + sequence)
+                    .coin("BTC")
+                    .sentiment(SentimentType.NEUTRAL)
+                    .sourceUrl("https://example.com/")
+                    .publishedAt(LocalDateTime.now())
+                    .read(false)
+                    .build());
+        }
+        transactionTemplate.executeWithoutResult(status -> newsRepository.saveAll(batch));
+    }
+
+    /**
+     * 只启动数据源、JPA 与仓库，不加载业务服务和定时任务
+     */
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = {News.class, NewsInsertBenchmark.class})
+    @EnableJpaRepositories(basePackageClasses = NewsRepository.class)
+    static class JpaOnly {
+    }
+
+    /**
+     * 改造前的 news 映射：自增主键
+     */
+    @Entity
+    @Table(name = "news")
+    public static class IdentityNews {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        Long id;
+
+        String title;
+
+        @Convert(converter = CompressedTextConverter.class)
+        @Column(columnDefinition = "BLOB")
+        String summary;
+
+        String coin;
+
+        @Enumerated(EnumType.STRING)
+        SentimentType sentiment;
+
+        @Column(name = "source_url")
+        String sourceUrl;
+
+        @Column(name = "published_at")
+        LocalDateTime publishedAt;
+
+        @Column(name = "is_read")
+        Boolean read;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.backend.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 新闻列表页查询延迟对比（每页耗时）：
+ * fullRow 对应加载完整 News 实体，会读取 summary 所在的 TEXT 溢出页；
+ * projection 对应 fields 不含 summary 时的窄列投影。
+ * 数据写入临时表 news_bench，摘要长度足以被 InnoDB 存放到溢出页，不影响业务数据。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class NewsListQueryBenchmark {
+    private static final int PAGE_SIZE = 20;
+    private static final int PAGES = 50;
+    private static final String[] COINS = {"BTC", "ETH", "SOL", "USDT"};
+    private static final String[] SENTIMENTS = {"BULLISH", "BEARISH", "NEUTRAL"};
+    private static final String FILTER_AND_PAGE =
+            " FROM news_bench WHERE coin = ? ORDER BY published_at DESC LIMIT ? OFFSET ?";
+
+    @Param({"20000"})
+    private int rows;
+
+    @Param({"12000"})
+    private int summaryLength;
+
+    private Connection connection;
+    private PreparedStatement fullRow;
+    private PreparedStatement projection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        connection = BenchmarkDatabase.connect();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS news_bench");
+            statement.execute("CREATE TABLE news_bench LIKE news");
+        }
+        seed();
+        fullRow = connection.prepareStatement("SELECT id, title, summary, coin, sentiment, source_url, published_at,"
+                + " is_read" + FILTER_AND_PAGE);
+        projection = connection.prepareStatement("SELECT id, title, coin, sentiment, source_url, published_at,"
+                + " is_read" + FILTER_AND_PAGE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fullRow.close();
+        projection.close();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS news_bench");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public long fullRow() throws Exception {
+        return readPage(fullRow);
+    }
+
+    @Benchmark
+    public long projection() throws Exception {
+        return readPage(projection);
+    }
+
+    private long readPage(PreparedStatement statement) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        statement.setString(1, COINS[random.nextInt(COINS.length)]);
+        statement.setInt(2, PAGE_SIZE);
+        statement.setInt(3, random.nextInt(PAGES) * PAGE_SIZE);
+        long checksum = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                for (int i = 1; i <= columns; i++) {
+                    Object value = rs.getObject(i);
+                    checksum += value == null ? 0 : value.hashCode();
+                }
+            }
+        }
+        return checksum;
+    }
+
+    private void seed() throws Exception {
+        String summary = "x".repeat(summaryLength);
+        LocalDateTime base = LocalDateTime.now();
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO news_bench (id, title, summary, coin, sentiment, source_url, published_at, is_read)"
+                        + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                insert.setLong(1, i);
+                insert.setString(2, "bench title " + i);
+                insert.setString(3, summary);
+                insert.setString(4, COINS[i % COINS.length]);
+                insert.setString(5, SENTIMENTS[i % SENTIMENTS.length]);
+                insert.setString(6, "https://example.com/" + i);
+                insert.setTimestamp(7, Timestamp.valueOf(base.minusMinutes(i)));
+                insert.setBoolean(8, false);
+                insert.addBatch();
+                if (i % 500 == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE news_bench");
+        }
+    }
+}
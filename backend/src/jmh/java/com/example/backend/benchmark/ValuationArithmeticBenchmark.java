@@ -0,0 +1,122 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.service.FixedPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一轮估值（市值 = 数量 × 价格，再按总市值算占比）的纯计算耗时：
+ * bigDecimal 按原实现对未舍入的市值求和、divide 出占比，最后才舍入到分；fixedPoint 与 PortfolioValuationEngine 相同，
+ * 价格不舍入、放大到统一小数位后精确相乘，并做同样的溢出检查。价格保留到 8 位小数（0.01～10000 美元），
+ * 数量不超过 1，保证总市值落在 long 能精确表示的范围内。两者输出相同的分与 0.01 个百分点，
+ * setUp 时逐项比对，不一致直接失败。不需要数据库
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValuationArithmeticBenchmark {
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    @Param({"4", "1000", "10000"})
+    private int holdings;
+
+    private BigDecimal[] amounts;
+    private double[] prices;
+    private long[] fixedAmounts;
+    private long[] fixedPrices;
+    private int valueScale;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        amounts = new BigDecimal[holdings];
+        prices = new double[holdings];
+        fixedAmounts = new long[holdings];
+        fixedPrices = new long[holdings];
+        int priceScale = 0;
+        for (int i = 0; i < holdings; i++) {
+            amounts[i] = BigDecimal.valueOf(random.nextInt(10_000), FixedPoint.AMOUNT_SCALE);
+            prices[i] = Math.round(Math.pow(10, random.nextDouble() * 6 - 2) * 1e8) / 1e8;
+            fixedAmounts[i] = FixedPoint.amount(amounts[i]);
+            priceScale = Math.max(priceScale, BigDecimal.valueOf(prices[i]).stripTrailingZeros().scale());
+        }
+        // 与 PriceSnapshot 相同：所有价格按十进制原值放大到同一小数位
+        for (int i = 0; i < holdings; i++) {
+            fixedPrices[i] = BigDecimal.valueOf(prices[i]).movePointRight(priceScale).longValueExact();
+        }
+        valueScale = FixedPoint.AMOUNT_SCALE + priceScale;
+        BigDecimal[][] expected = bigDecimalValuation();
+        long[][] actual = fixedPointValuation();
+        for (int i = 0; i < holdings; i++) {
+            if (FixedPoint.money(expected[0][i]) != actual[0][i]
+                    || FixedPoint.percentage(expected[1][i]) != actual[1][i]) {
+                throw new IllegalStateException("Fixed-point valuation differs at holding " + i);
+            }
+        }
+    }
+
+    @Benchmark
+    public void bigDecimal(Blackhole blackhole) {
+        blackhole.consume(bigDecimalValuation());
+    }
+
+    @Benchmark
+    public void fixedPoint(Blackhole blackhole) {
+        blackhole.consume(fixedPointValuation());
+    }
+
+    private BigDecimal[][] bigDecimalValuation() {
+        BigDecimal[] exact = new BigDecimal[holdings];
+        BigDecimal[] values = new BigDecimal[holdings];
+        BigDecimal[] percentages = new BigDecimal[holdings];
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < holdings; i++) {
+            exact[i] = amounts[i].multiply(BigDecimal.valueOf(prices[i]));
+            total = total.add(exact[i]);
+        }
+        for (int i = 0; i < holdings; i++) {
+            values[i] = exact[i].setScale(2, RoundingMode.HALF_UP);
+            percentages[i] = total.signum() == 0 ? BigDecimal.ZERO
+                    : exact[i].divide(total, 4, RoundingMode.HALF_UP).multiply(HUNDRED).setScale(2, RoundingMode.HALF_UP);
+        }
+        return new BigDecimal[][]{values, percentages};
+    }
+
+    private long[][] fixedPointValuation() {
+        long[] exact = new long[holdings];
+        long[] values = new long[holdings];
+        long[] percentages = new long[holdings];
+        long total = 0;
+        for (int i = 0; i < holdings; i++) {
+            exact[i] = FixedPoint.exactValue(fixedAmounts[i], fixedPrices[i]);
+            if (exact[i] == FixedPoint.OVERFLOW) {
+                throw new IllegalStateException("Fixed-point value overflows at holding " + i);
+            }
+            total = Math.addExact(total, exact[i]);
+        }
+        for (int i = 0; i < holdings; i++) {
+            values[i] = FixedPoint.money(exact[i], valueScale);
+            percentages[i] = FixedPoint.percentage(exact[i], total);
+        }
+        return new long[][]{values, percentages};
+    }
+}
@@ -1,12 +1,19 @@
 package com.example.backend.controller;
 
+import com.example.backend.dto.ExchangeRateStatus;
 import com.example.backend.service.ExchangeRateService;
+import com.example.backend.service.PriceSnapshot;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Locale;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/exchange-rates")
 @CrossOrigin
@@ -14,8 +21,24 @@ import org.springframework.web.bind.annotation.RestController;
 public class ExchangeRateController {
     private final ExchangeRateService exchangeRateService;
 
+    /**
+     * 响应体保持原格式，数据新旧通过 Age（秒）与 X-Rates-Source 响应头给出
+     */
     @GetMapping
-    public Object getExchangeRates() {
-        return exchangeRateService.getExchangeRates();
+    public ResponseEntity<Map<String, Map<String, Double>>> getExchangeRates() {
+        PriceSnapshot snapshot = exchangeRateService.getPriceSnapshot();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header("X-Rates-Source", snapshot.source().name().toLowerCase(Locale.ROOT));
+        if (snapshot.fetchedAt() != null) {
+            long ageSeconds = Math.max(0, (System.currentTimeMillis() - snapshot.fetchedAtMillis()) / 1000);
+            response.header(HttpHeaders.AGE, String.valueOf(ageSeconds))
+                    .header("X-Rates-Fetched-At", snapshot.fetchedAt().toString());
+        }
+        return response.body(snapshot.asCoinGeckoMap());
+    }
+
+    @GetMapping("/status")
+    public ExchangeRateStatus status() {
+        return exchangeRateService.status();
     }
 }
@@ -5,6 +5,7 @@ import com.example.backend.service.MetricsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -16,7 +17,7 @@ public class MetricsController {
     private final MetricsService metricsService;
 
     @GetMapping
-    public MetricsDto load() {
-        return metricsService.loadMetrics();
+    public MetricsDto load(@RequestHeader(value = "X-Username", required = false) String username) {
+        return metricsService.loadMetrics(username);
     }
 }
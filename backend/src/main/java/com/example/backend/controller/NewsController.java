@@ -1,21 +1,39 @@
 package com.example.backend.controller;
 
 import com.example.backend.dto.PagedResponse;
+import com.example.backend.dto.SentimentWindowDto;
+import com.example.backend.dto.NewsBulkReadRequest;
 import com.example.backend.dto.NewsDto;
+import com.example.backend.dto.NewsIngestQueueStats;
 import com.example.backend.dto.NewsIngestRequest;
+import com.example.backend.dto.NewsQueryCacheStats;
+import com.example.backend.service.NewsExportService;
+import com.example.backend.service.NewsIngestQueue;
 import com.example.backend.service.NewsService;
+import com.example.backend.service.NewsStreamIngestService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 import jakarta.validation.Valid;
 
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -25,15 +43,55 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class NewsController {
     private final NewsService newsService;
+    private final NewsStreamIngestService newsStreamIngestService;
+    private final NewsExportService newsExportService;
+    private final NewsIngestQueue newsIngestQueue;
 
     @GetMapping
     public PagedResponse<NewsDto> listNews(
             @RequestParam(defaultValue = "all") String coin,
             @RequestParam(defaultValue = "all") String sentiment,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "offset") String paging,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "false") boolean history,
+            @RequestParam(defaultValue = "false") boolean unreadOnly,
+            @RequestHeader(value = "X-Username", required = false) String username
     ) {
-        return newsService.queryNews(coin, sentiment, page, size);
+        if (unreadOnly) {
+            return newsService.queryUnreadNews(coin, sentiment, page, size, fields, username);
+        }
+        PagedResponse<NewsDto> response;
+        if (StringUtils.hasText(q)) {
+            response = newsService.searchNews(q, coin, sentiment, page, size, fields);
+        } else if ("cursor".equalsIgnoreCase(paging) || cursor != null) {
+            response = newsService.queryNewsByCursor(coin, sentiment, cursor, size, withTotal, fields, history);
+        } else {
+            response = newsService.queryNews(coin, sentiment, page, size, fields, history);
+        }
+        return newsService.withReadState(response, username);
+    }
+
+    @GetMapping("/{id}")
+    public NewsDto getNews(@PathVariable Long id) {
+        return newsService.getNews(id);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @RequestParam(defaultValue = "all") String coin,
+            @RequestParam(defaultValue = "all") String sentiment) {
+        return newsService.subscribe(coin, sentiment);
+    }
+
+    @GetMapping("/sentiment")
+    public Map<String, Map<String, SentimentWindowDto>> sentimentWindows(
+            @RequestParam(defaultValue = "all") String coin) {
+        return newsService.sentimentWindows(coin);
     }
 
     @PostMapping("/ingest")
@@ -48,9 +106,94 @@ public class NewsController {
         return Map.of("ids", ids, "count", ids.size(), "status", "ok");
     }
 
+    /**
+     * 异步导入：校验后入队即返回 202 和票据，由后台写线程批量落库；队列已满时返回 429，批次超过上限时返回 413
+     */
+    @PostMapping("/ingest/async")
+    public ResponseEntity<Map<String, Object>> ingestAsync(@Valid @RequestBody NewsIngestRequest request) {
+        List<Long> tickets = newsIngestQueue.offer(List.of(request));
+        if (tickets.isEmpty()) {
+            return queueFull();
+        }
+        return ResponseEntity.accepted().body(Map.of("ticket", tickets.get(0), "status", "queued"));
+    }
+
+    @PostMapping("/ingest/async/batch")
+    public ResponseEntity<Map<String, Object>> ingestAsyncBatch(@Valid @RequestBody List<NewsIngestRequest> requests) {
+        List<Long> tickets = newsIngestQueue.offer(requests);
+        if (tickets.isEmpty() && !requests.isEmpty()) {
+            return queueFull();
+        }
+        return ResponseEntity.accepted().body(Map.of("tickets", tickets, "count", tickets.size(), "status", "queued"));
+    }
+
+    @GetMapping("/ingest/tickets/{ticket}")
+    public Map<String, Object> ticketStatus(@PathVariable long ticket) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("ticket", ticket);
+        response.put("status", newsIngestQueue.ticketStatus(ticket));
+        String error = newsIngestQueue.ticketError(ticket);
+        if (error != null) {
+            response.put("error", error);
+        }
+        return response;
+    }
+
+    @GetMapping("/cache")
+    public NewsQueryCacheStats queryCacheStats() {
+        return newsService.queryCacheStats();
+    }
+
+    @GetMapping("/ingest/queue")
+    public NewsIngestQueueStats ingestQueueStats() {
+        return newsIngestQueue.stats();
+    }
+
+    private ResponseEntity<Map<String, Object>> queueFull() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(newsIngestQueue.getRetryAfterSeconds()))
+                .body(Map.of("status", "rejected", "error", "ingest queue is full"));
+    }
+
+    /**
+     * NDJSON 流式导入：请求体每行一条新闻，响应逐行返回处理结果，最后一行为汇总
+     */
+    @PostMapping(value = "/ingest/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void ingestStream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        newsStreamIngestService.ingest(request.getInputStream(), response.getOutputStream());
+    }
+
+    /**
+     * 全量导出：format=csv|ndjson，可按 coin/sentiment 与发布时间区间 [from, to) 过滤，结果边查边写
+     */
+    @GetMapping("/export")
+    public void export(
+            @RequestParam(defaultValue = "all") String coin,
+            @RequestParam(defaultValue = "all") String sentiment,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+        NewsExportService.Format exportFormat = NewsExportService.parseFormat(format);
+        response.setContentType(exportFormat.contentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"news." + exportFormat.extension() + "\"");
+        newsExportService.export(coin, sentiment, from, to, exportFormat, response.getOutputStream());
+    }
+
     @PostMapping("/{id}/read")
-    public Map<String, String> markRead(@PathVariable Long id) {
-        newsService.markAsRead(id);
+    public Map<String, String> markRead(@PathVariable Long id,
+                                        @RequestHeader(value = "X-Username", required = false) String username) {
+        newsService.markAsRead(id, username);
         return Map.of("status", "ok");
     }
+
+    @PostMapping("/read/bulk")
+    public Map<String, Object> markReadBulk(@RequestBody NewsBulkReadRequest request,
+                                            @RequestHeader(value = "X-Username", required = false) String username) {
+        long updated = newsService.markAsReadBulk(request, username);
+        return Map.of("updated", updated, "status", "ok");
+    }
 }
@@ -1,16 +1,26 @@
 package com.example.backend.controller;
 
+import com.example.backend.dto.HoldingDto;
 import com.example.backend.dto.PortfolioResponse;
+import com.example.backend.dto.PortfolioTickDto;
+import com.example.backend.dto.ValuationStatus;
 import com.example.backend.service.PortfolioService;
 import com.example.backend.service.PortfolioUpdateService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/portfolio")
 @CrossOrigin
@@ -20,8 +30,50 @@ public class PortfolioController {
     private final PortfolioUpdateService portfolioUpdateService;
 
     @GetMapping
-    public PortfolioResponse getPortfolio() {
-        return portfolioService.getPortfolio();
+    public PortfolioResponse getPortfolio(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer maxPoints) {
+        return portfolioService.getPortfolio(from, to, maxPoints);
+    }
+
+    /**
+     * 指定组合的当前持仓，默认组合ID为 1
+     */
+    @GetMapping("/holdings")
+    public List<HoldingDto> getHoldings(@RequestParam(defaultValue = "1") long portfolioId) {
+        return portfolioService.getHoldings(portfolioId);
+    }
+
+    /**
+     * 最近一轮多组合估值的规模、各阶段耗时与吞吐（组合/秒）
+     */
+    @GetMapping("/valuation/status")
+    public ValuationStatus getValuationStatus() {
+        return portfolioService.getValuationStatus();
+    }
+
+    /**
+     * 只取历史占比：from/to 为 yyyy-MM-dd（含两端），maxPoints 限定返回点数
+     */
+    @GetMapping("/history")
+    public List<Map<String, Object>> getHistory(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer maxPoints) {
+        return portfolioService.getHistory(from, to, maxPoints);
+    }
+
+    /**
+     * 盘中价格与占比：coin 为空或 all 表示全部币种，from/to 默认最近一小时，interval 为 raw、1m 或 1h
+     */
+    @GetMapping("/ticks")
+    public List<PortfolioTickDto> getTicks(
+            @RequestParam(defaultValue = "all") String coin,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "raw") String interval) {
+        return portfolioService.getTicks(coin, from, to, interval);
     }
 
     @PostMapping("/update")
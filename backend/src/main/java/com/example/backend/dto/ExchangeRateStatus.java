@@ -0,0 +1,33 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExchangeRateStatus {
+    /**
+     * 缓存价格的抓取时间，首次成功请求上游前为 null
+     */
+    private LocalDateTime fetchedAt;
+    private Long ageSeconds;
+    /**
+     * 缓存价格超过 TTL 后为 true
+     */
+    private boolean stale;
+    private long ttlSeconds;
+    private long maxStaleSeconds;
+    private boolean refreshing;
+    private LocalDateTime lastFailureAt;
+    private long upstreamCalls;
+    /**
+     * 复用进行中的上游请求、没有自己发起请求的次数
+     */
+    private long coalescedCalls;
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -13,6 +14,8 @@ import java.math.BigDecimal;
 @Builder
 public class MetricsDto {
     private long unreadNews;
+    /** 按 币种 → 小写情绪 统计的未读新闻数 */
+    private Map<String, Map<String, Long>> unreadByCoin;
     private long pendingReports;
     private BigDecimal totalAssetValue;
 }
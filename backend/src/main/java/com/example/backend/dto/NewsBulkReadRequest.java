@@ -0,0 +1,25 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量标记已读：指定 ids，或按过滤条件（各字段可选，缺省表示不限制）；
+ * ids 与过滤条件都不传时必须显式设置 all=true 才会标记全部新闻，避免空请求误标全部
+ */
+@Data
+public class NewsBulkReadRequest {
+    private List<Long> ids;
+
+    private String coin;
+
+    private String sentiment;
+
+    /**
+     * 只标记该时间之前发布的新闻，格式 yyyy-MM-dd HH:mm
+     */
+    private String before;
+
+    private boolean all;
+}
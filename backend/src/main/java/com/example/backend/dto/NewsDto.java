@@ -1,5 +1,6 @@
 package com.example.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -8,7 +9,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class NewsDto {
     private Long id;
     private String time;
@@ -18,4 +19,19 @@ public class NewsDto {
     private String source;
     private String title;
     private Boolean read;
+
+    /**
+     * fields 参数选出的投影：未选择的字段为 null 且不出现在响应中；未指定 fields 的响应仍保留 null 字段
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Projection extends NewsDto {
+        private Projection(NewsDto dto) {
+            super(dto.getId(), dto.getTime(), dto.getCoin(), dto.getSentiment(), dto.getSummary(), dto.getSource(),
+                    dto.getTitle(), dto.getRead());
+        }
+
+        public static Projection of(NewsDto dto) {
+            return new Projection(dto);
+        }
+    }
 }
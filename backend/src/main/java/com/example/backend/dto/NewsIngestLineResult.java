@@ -0,0 +1,22 @@
+package com.example.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * NDJSON 流式导入每一行的结果，status 为 ok 或 error
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NewsIngestLineResult {
+    private long line;
+    private String status;
+    private Long id;
+    private String error;
+}
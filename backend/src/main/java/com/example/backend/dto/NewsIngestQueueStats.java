@@ -0,0 +1,31 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NewsIngestQueueStats {
+    private int depth;
+    private int capacity;
+    private long accepted;
+    private long rejected;
+    private long written;
+    private long failed;
+    private long batches;
+    private int lastBatchSize;
+    private double averageBatchSize;
+    /**
+     * 最近一个采样周期内每秒落库条数
+     */
+    private double drainRatePerSecond;
+    private long processedThroughTicket;
+    /**
+     * 启动以来被判定为近似重复、归并到其他新闻而未写入的条数（含同步、异步与流式导入）
+     */
+    private long nearDuplicatesSuppressed;
+}
@@ -1,22 +1,29 @@
 package com.example.backend.dto;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 @Data
 public class NewsIngestRequest {
+    // 长度上限与 news 表的列定义一致，超长的记录在入队或解析时直接拒绝，不会进入批量写库
     @NotBlank
+    @Size(max = 255)
     private String title;
 
+    // summary 为 BLOB（65535 字节），按每个字符最多 3 个 UTF-8 字节折算
     @NotBlank
+    @Size(max = 21845)
     private String summary;
 
     @NotBlank
+    @Size(max = 20)
     private String coin;
 
     @NotBlank
     private String sentiment;
 
+    @Size(max = 500)
     private String sourceUrl;
 
     /**
@@ -0,0 +1,30 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NewsQueryCacheStats {
+    private int size;
+    private int capacity;
+    /**
+     * 当前数据版本，旧版本下缓存的条目视为过期
+     */
+    private long version;
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    /**
+     * 缓存已满时淘汰的条目数（最久未使用的先淘汰）
+     */
+    private long evictions;
+    /**
+     * 数据版本递增后在查询时丢弃的过期条目数
+     */
+    private long invalidations;
+}
@@ -1,5 +1,6 @@
 package com.example.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -10,11 +11,19 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class PagedResponse<T> {
     private List<T> content;
-    private long totalElements;
-    private int totalPages;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalElements;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer totalPages;
     private int page;
     private int size;
+
+    /**
+     * 游标分页模式下一页的游标，最后一页和偏移分页模式下不返回
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
 }
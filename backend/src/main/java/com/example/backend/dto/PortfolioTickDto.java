@@ -0,0 +1,30 @@
+package com.example.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一次盘中估值采样，或一个分钟 / 小时桶内采样的汇总。
+ * 原始 tick 的 open/high/low 为 null，close 为采样价格
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PortfolioTickDto {
+    private String time;
+    private String coin;
+    private Double open;
+    private Double high;
+    private Double low;
+    private Double close;
+    /**
+     * 桶内最后一次采样时的持仓占比
+     */
+    private Double allocation;
+    private Integer samples;
+}
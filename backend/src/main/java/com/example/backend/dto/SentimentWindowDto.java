@@ -0,0 +1,23 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个币种在滑动窗口（1h / 24h / 7d）内的情绪分布。
+ * {@code netScore} = (看涨 - 看跌) / 总数，窗口内没有新闻时为 0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SentimentWindowDto {
+    private String window;
+    private long bullish;
+    private long bearish;
+    private long neutral;
+    private long total;
+    private double netScore;
+}
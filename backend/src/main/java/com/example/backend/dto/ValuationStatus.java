@@ -0,0 +1,46 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class ValuationStatus {
+    /**
+     * 估值使用的 fork-join 线程数
+     */
+    private int parallelism;
+    private long runs;
+    /**
+     * 最近一轮估值的完成时间，首轮完成前为 null
+     */
+    private LocalDateTime lastRunAt;
+    private int portfolios;
+    private int holdings;
+    /**
+     * 本轮从数据库读取的持仓数：全量读取时等于 holdings，只重新读取过期组合时为这些组合的行数
+     */
+    private int loadedHoldings;
+    /**
+     * 市值或占比变化超过阈值并确认写回的持仓数
+     */
+    private int writtenHoldings;
+    private long loadMillis;
+    private long computeMillis;
+    private long writeMillis;
+    /**
+     * 仅 fork-join 计算阶段的吞吐（组合/秒）
+     */
+    private double computePortfoliosPerSecond;
+    /**
+     * 包含读取持仓与写回的整轮吞吐（组合/秒）
+     */
+    private double portfoliosPerSecond;
+    private long totalPortfolios;
+}
@@ -0,0 +1,93 @@
+package com.example.backend.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 大文本列的透明压缩：写入时超过阈值且压缩后更短的文本以 Deflate 压缩，前面加 3 字节头（0xFF、格式版本、编码），
+ * 其余文本按 UTF-8 原样存储。0xFF 不会出现在合法 UTF-8 中，读取时据此区分，
+ * 改为 BLOB 之前写入的未压缩行无需迁移即可读取
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+    static final int MIN_COMPRESS_BYTES = 256;
+    private static final byte MAGIC = (byte) 0xFF;
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte CODEC_DEFLATE = 1;
+    private static final int HEADER_BYTES = 3;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String attribute) {
+        if (attribute == null) {
+            return null;
+        }
+        byte[] plain = attribute.getBytes(StandardCharsets.UTF_8);
+        if (plain.length < MIN_COMPRESS_BYTES) {
+            return plain;
+        }
+        byte[] compressed = deflate(plain);
+        return compressed.length < plain.length ? compressed : plain;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] dbData) {
+        if (dbData == null) {
+            return null;
+        }
+        if (dbData.length < HEADER_BYTES || dbData[0] != MAGIC) {
+            return new String(dbData, StandardCharsets.UTF_8);
+        }
+        if (dbData[1] != FORMAT_VERSION || dbData[2] != CODEC_DEFLATE) {
+            throw new IllegalStateException("unsupported compressed text header: " + dbData[1] + "/" + dbData[2]);
+        }
+        return new String(inflate(dbData), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(byte[] plain) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(plain);
+            deflater.finish();
+            // 压缩结果不比原文长时才会被采用，缓冲区按原文长度分配即可
+            byte[] buffer = new byte[HEADER_BYTES + plain.length];
+            buffer[0] = MAGIC;
+            buffer[1] = FORMAT_VERSION;
+            buffer[2] = CODEC_DEFLATE;
+            int length = HEADER_BYTES;
+            while (!deflater.finished() && length < buffer.length) {
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return deflater.finished() ? Arrays.copyOf(buffer, length) : plain;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, HEADER_BYTES, data.length - HEADER_BYTES);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("truncated compressed text");
+                }
+                output.write(buffer, 0, length);
+            }
+            return output.toByteArray();
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("corrupted compressed text", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+}
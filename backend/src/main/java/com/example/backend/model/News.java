@@ -17,12 +17,15 @@ import java.time.LocalDateTime;
 public class News {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "news_id")
+    @TableGenerator(name = "news_id", table = "id_generator", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "news", allocationSize = 50)
     private Long id;
 
     private String title;
 
-    @Column(columnDefinition = "TEXT")
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(columnDefinition = "BLOB")
     private String summary;
 
     private String coin;
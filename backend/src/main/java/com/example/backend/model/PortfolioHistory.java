@@ -18,7 +18,9 @@ import java.time.LocalDate;
 public class PortfolioHistory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "portfolio_history_id")
+    @TableGenerator(name = "portfolio_history_id", table = "id_generator", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "portfolio_history", allocationSize = 50)
     private Long id;
 
     @Column(name = "snap_date")
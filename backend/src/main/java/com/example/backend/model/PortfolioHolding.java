@@ -16,11 +16,19 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 public class PortfolioHolding {
+    /**
+     * 迁移前的单一组合，页面、报告审批和指标都基于该组合
+     */
+    public static final long DEFAULT_PORTFOLIO_ID = 1L;
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(name = "portfolio_id")
+    @Builder.Default
+    private Long portfolioId = DEFAULT_PORTFOLIO_ID;
+
     private String coin;
 
     private BigDecimal amount;
@@ -27,14 +27,16 @@ public class Report {
     @Enumerated(EnumType.STRING)
     private ReportStatus status;
 
-    @Column(name = "ai_judgment", columnDefinition = "TEXT")
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "ai_judgment", columnDefinition = "BLOB")
     private String aiJudgment;
 
     @Enumerated(EnumType.STRING)
     @Column(name = "risk_level")
     private RiskLevel riskLevel;
 
-    @Column(name = "review_remark", columnDefinition = "TEXT")
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "review_remark", columnDefinition = "BLOB")
     private String reviewRemark;
 
     @OneToMany(mappedBy = "report", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
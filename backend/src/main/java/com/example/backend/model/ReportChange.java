@@ -17,7 +17,9 @@ import java.math.BigDecimal;
 public class ReportChange {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "report_change_id")
+    @TableGenerator(name = "report_change_id", table = "id_generator", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "report_change", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -35,6 +37,7 @@ public class ReportChange {
     @Column(name = "change_pct")
     private BigDecimal changePct;
 
-    @Column(columnDefinition = "TEXT")
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(columnDefinition = "BLOB")
     private String reason;
 }
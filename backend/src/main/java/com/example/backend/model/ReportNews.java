@@ -15,7 +15,9 @@ import lombok.NoArgsConstructor;
 public class ReportNews {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "report_news_id")
+    @TableGenerator(name = "report_news_id", table = "id_generator", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "report_news", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
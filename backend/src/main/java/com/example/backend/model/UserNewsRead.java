@@ -0,0 +1,32 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户的新闻已读状态，已读新闻ID以压缩位图整体存为一个 BLOB
+ */
+@Entity
+@Table(name = "user_news_read")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserNewsRead {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Lob
+    @Column(name = "read_bitmap", columnDefinition = "MEDIUMBLOB")
+    private byte[] readBitmap;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
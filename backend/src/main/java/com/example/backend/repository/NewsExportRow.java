@@ -0,0 +1,12 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.SentimentType;
+
+import java.time.LocalDateTime;
+
+/**
+ * 导出用的新闻行，以构造器表达式查询得到，不进入持久化上下文
+ */
+public record NewsExportRow(Long id, String title, String summary, String coin, SentimentType sentiment,
+                            String sourceUrl, LocalDateTime publishedAt, Boolean read) {
+}
@@ -0,0 +1,123 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.CompressedTextConverter;
+import com.example.backend.model.News;
+import com.example.backend.model.SentimentType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * history=true 的列表查询：在 news 与 news_archive 两张表上执行同样的过滤和 (published_at, id) 倒序，
+ * 每个分支先各自按索引取前 offset+limit 行，再合并排序取一页，归档的新闻因此仍能翻到；
+ * 另提供导出用的 news_archive 只进游标
+ */
+@Repository
+public class NewsHistoryRepository {
+    private static final String LIST_COLUMNS = "id, title, coin, sentiment, source_url, published_at, is_read";
+    private static final String FULL_COLUMNS = "id, title, summary, coin, sentiment, source_url, published_at, is_read";
+    private static final CompressedTextConverter SUMMARY_CONVERTER = new CompressedTextConverter();
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate streamingTemplate;
+
+    public NewsHistoryRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        // MySQL 驱动只在 fetchSize 为 Integer.MIN_VALUE 时逐行读取结果集，否则会把整个结果集读入内存
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+        streaming.setFetchSize(Integer.MIN_VALUE);
+        this.streamingTemplate = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    /**
+     * 按 币种/情绪 过滤（为空表示不过滤），从 after 之后（为空表示从头）按发布时间倒序取 [offset, offset+limit) 行
+     */
+    public List<News> findPage(String coin, SentimentType sentiment, LocalDateTime afterPublishedAt, Long afterId,
+                               int offset, int limit, boolean withSummary) {
+        MapSqlParameterSource params = filterParams(coin, sentiment)
+                .addValue("afterPublishedAt", afterPublishedAt)
+                .addValue("afterId", afterId)
+                .addValue("window", offset + limit)
+                .addValue("offset", offset)
+                .addValue("limit", limit);
+        String columns = withSummary ? FULL_COLUMNS : LIST_COLUMNS;
+        String where = filterClause()
+                + (afterPublishedAt != null
+                ? " AND (published_at < :afterPublishedAt OR (published_at = :afterPublishedAt AND id < :afterId))"
+                : "");
+        String branch = " WHERE published_at IS NOT NULL" + where + " ORDER BY published_at DESC, id DESC LIMIT :window";
+        String sql = "SELECT " + columns + " FROM ("
+                + "(SELECT " + columns + " FROM news" + branch + ")"
+                + " UNION ALL "
+                + "(SELECT " + columns + " FROM news_archive" + branch + ")"
+                + ") t ORDER BY published_at DESC, id DESC LIMIT :limit OFFSET :offset";
+        return jdbcTemplate.query(sql, params, rowMapper(withSummary));
+    }
+
+    public long count(String coin, SentimentType sentiment) {
+        String where = " WHERE published_at IS NOT NULL" + filterClause();
+        Long total = jdbcTemplate.queryForObject(
+                "SELECT (SELECT COUNT(*) FROM news" + where + ") + (SELECT COUNT(*) FROM news_archive" + where + ")",
+                filterParams(coin, sentiment), Long.class);
+        return total == null ? 0 : total;
+    }
+
+    public Optional<News> findArchived(long id) {
+        return jdbcTemplate.query("SELECT " + FULL_COLUMNS + " FROM news_archive WHERE id = :id",
+                        new MapSqlParameterSource("id", id), rowMapper(true))
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * 按 (published_at, id) 升序逐行读取 news_archive 中符合条件的新闻，过滤条件与 news 表的导出一致；
+     * 流需要在事务内消费并关闭，同一连接上同时只能有一个逐行读取的结果集
+     */
+    public Stream<NewsExportRow> streamArchivedExportRows(String coin, SentimentType sentiment,
+                                                          LocalDateTime from, LocalDateTime to) {
+        MapSqlParameterSource params = filterParams(coin, sentiment)
+                .addValue("from", from)
+                .addValue("to", to);
+        String sql = "SELECT " + FULL_COLUMNS + " FROM news_archive WHERE published_at IS NOT NULL" + filterClause()
+                + " AND (:from IS NULL OR published_at >= :from) AND (:to IS NULL OR published_at < :to)"
+                + " ORDER BY published_at, id";
+        return streamingTemplate.queryForStream(sql, params, (rs, rowNum) -> {
+            News news = rowMapper(true).mapRow(rs, rowNum);
+            return new NewsExportRow(news.getId(), news.getTitle(), news.getSummary(), news.getCoin(),
+                    news.getSentiment(), news.getSourceUrl(), news.getPublishedAt(), news.getRead());
+        });
+    }
+
+    private static String filterClause() {
+        return " AND (:coin IS NULL OR coin = :coin) AND (:sentiment IS NULL OR sentiment = :sentiment)";
+    }
+
+    private static MapSqlParameterSource filterParams(String coin, SentimentType sentiment) {
+        return new MapSqlParameterSource()
+                .addValue("coin", coin)
+                .addValue("sentiment", sentiment != null ? sentiment.name() : null);
+    }
+
+    private static RowMapper<News> rowMapper(boolean withSummary) {
+        return (rs, rowNum) -> {
+            String sentiment = rs.getString("sentiment");
+            return News.builder()
+                    .id(rs.getLong("id"))
+                    .title(rs.getString("title"))
+                    .summary(withSummary ? SUMMARY_CONVERTER.convertToEntityAttribute(rs.getBytes("summary")) : null)
+                    .coin(rs.getString("coin"))
+                    .sentiment(sentiment != null ? SentimentType.valueOf(sentiment) : null)
+                    .sourceUrl(rs.getString("source_url"))
+                    .publishedAt(rs.getObject("published_at", LocalDateTime.class))
+                    .read(rs.getObject("is_read") != null ? rs.getBoolean("is_read") : null)
+                    .build();
+        };
+    }
+}
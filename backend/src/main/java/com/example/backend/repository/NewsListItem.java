@@ -0,0 +1,12 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.SentimentType;
+
+import java.time.LocalDateTime;
+
+/**
+ * 新闻列表的窄列投影，不包含 summary（TEXT）列
+ */
+public record NewsListItem(Long id, String title, String coin, SentimentType sentiment, String sourceUrl,
+                           LocalDateTime publishedAt, Boolean read) {
+}
@@ -0,0 +1,20 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.News;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface NewsListQueryRepository {
+    /**
+     * 按过滤条件与排序查询一页窄列投影，SQL 只选择 NewsListItem 中的列
+     */
+    List<NewsListItem> findListItems(Specification<News> specification, Sort sort, int offset, int limit);
+
+    /**
+     * 以只进游标逐行读取导出数据，需在事务内消费并关闭返回的流
+     */
+    Stream<NewsExportRow> streamExportRows(Specification<News> specification, Sort sort);
+}
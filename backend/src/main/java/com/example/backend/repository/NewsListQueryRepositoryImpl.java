@@ -0,0 +1,94 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.News;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class NewsListQueryRepositoryImpl implements NewsListQueryRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<NewsListItem> findListItems(Specification<News> specification, Sort sort, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<NewsListItem> query = cb.createQuery(NewsListItem.class);
+        Root<News> root = query.from(News.class);
+        query.select(cb.construct(NewsListItem.class,
+                root.get("id"),
+                root.get("title"),
+                root.get("coin"),
+                root.get("sentiment"),
+                root.get("sourceUrl"),
+                root.get("publishedAt"),
+                root.get("read")));
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * MySQL 驱动只有在 fetchSize 为 Integer.MIN_VALUE 时才逐行流式读取结果集，否则会把整个结果集读入内存；
+     * 构造器表达式的结果不是托管实体，持久化上下文不会随行数增长
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<NewsExportRow> streamExportRows(Specification<News> specification, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<NewsExportRow> query = cb.createQuery(NewsExportRow.class);
+        Root<News> root = query.from(News.class);
+        query.select(cb.construct(NewsExportRow.class,
+                root.get("id"),
+                root.get("title"),
+                root.get("summary"),
+                root.get("coin"),
+                root.get("sentiment"),
+                root.get("sourceUrl"),
+                root.get("publishedAt"),
+                root.get("read")));
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        ScrollableResults<NewsExportRow> results = entityManager.createQuery(query)
+                .unwrap(Query.class)
+                .setFetchSize(Integer.MIN_VALUE)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        Spliterator<NewsExportRow> spliterator = new Spliterators.AbstractSpliterator<>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super NewsExportRow> action) {
+                if (!results.next()) {
+                    return false;
+                }
+                action.accept(results.get());
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(results::close);
+    }
+}
@@ -1,14 +1,105 @@
 package com.example.backend.repository;
 
 import com.example.backend.model.News;
+import com.example.backend.model.SentimentType;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface NewsRepository extends JpaRepository<News, Long>, JpaSpecificationExecutor<News> {
-    long countByReadFalse();
+public interface NewsRepository extends JpaRepository<News, Long>, JpaSpecificationExecutor<News>,
+        NewsListQueryRepository {
+    // 未读的统一定义：is_read 为 0 或 NULL，与列表接口把 NULL 显示为未读一致
+    @Query("select count(n) from News n where n.read = false or n.read is null")
+    long countUnread();
+
+    @Query("select n.coin as coin, n.sentiment as sentiment, count(n) as total from News n"
+            + " where n.read = false or n.read is null group by n.coin, n.sentiment")
+    List<UnreadCount> countUnreadGrouped();
+
+    @Query("select n.coin as coin, n.sentiment as sentiment, count(n) as total from News n"
+            + " where n.id in :ids and (n.read = false or n.read is null) group by n.coin, n.sentiment")
+    List<UnreadCount> countUnreadGroupedByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select n.coin as coin, n.sentiment as sentiment, count(n) as total from News n"
+            + " where (n.read = false or n.read is null)"
+            + " and (:coin is null or n.coin = :coin)"
+            + " and (:sentiment is null or n.sentiment = :sentiment)"
+            + " and (:before is null or n.publishedAt < :before)"
+            + " group by n.coin, n.sentiment")
+    List<UnreadCount> countUnreadGroupedByFilter(@Param("coin") String coin, @Param("sentiment") SentimentType sentiment,
+                                                 @Param("before") LocalDateTime before);
+
+    /**
+     * 按ID读取并加共享锁：report_news 对 news 没有外键，新建报告时以此防止引用的新闻在提交前被归档
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select n from News n where n.id in :ids")
+    List<News> findAllByIdForShare(@Param("ids") Collection<Long> ids);
+
+    @Query("select n.id from News n where n.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    Optional<News> findTopByOrderByIdDesc();
 
     Optional<News> findFirstByTitleAndPublishedAt(String title, LocalDateTime publishedAt);
+
+    List<News> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<News> findByPublishedAtGreaterThanEqualAndIdGreaterThanOrderByIdAsc(LocalDateTime publishedAt, Long id,
+                                                                          Pageable pageable);
+
+    List<News> findByTitleInAndPublishedAtIn(Collection<String> titles, Collection<LocalDateTime> publishedAts);
+
+    @Query("select n.id as id, n.coin as coin, n.sentiment as sentiment from News n where n.id > :after order by n.id")
+    List<NewsIdRow> findIdRowsAfter(@Param("after") Long after, Pageable pageable);
+
+    /**
+     * 按ID键集分页取出符合过滤条件的新闻ID，调用方每次传入上一页的最大ID
+     */
+    @Query("select n.id from News n where n.id > :after"
+            + " and (:coin is null or n.coin = :coin)"
+            + " and (:sentiment is null or n.sentiment = :sentiment)"
+            + " and (:before is null or n.publishedAt < :before)"
+            + " order by n.id")
+    List<Long> findIdsByFilterAfter(@Param("coin") String coin, @Param("sentiment") SentimentType sentiment,
+                                    @Param("before") LocalDateTime before, @Param("after") Long after,
+                                    Pageable pageable);
+
+    @Modifying
+    @Query("update News n set n.read = true where n.id in :ids and (n.read = false or n.read is null)")
+    int markReadByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update News n set n.read = true where (n.read = false or n.read is null)"
+            + " and (:coin is null or n.coin = :coin)"
+            + " and (:sentiment is null or n.sentiment = :sentiment)"
+            + " and (:before is null or n.publishedAt < :before)")
+    int markReadByFilter(@Param("coin") String coin, @Param("sentiment") SentimentType sentiment,
+                         @Param("before") LocalDateTime before);
+
+    interface NewsIdRow {
+        Long getId();
+
+        String getCoin();
+
+        SentimentType getSentiment();
+    }
+
+    interface UnreadCount {
+        String getCoin();
+
+        SentimentType getSentiment();
+
+        long getTotal();
+    }
 }
@@ -1,7 +1,12 @@
 package com.example.backend.repository;
 
 import com.example.backend.model.PortfolioHolding;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface PortfolioHoldingRepository extends JpaRepository<PortfolioHolding, Long> {
+    List<PortfolioHolding> findByPortfolioId(Long portfolioId);
+    List<PortfolioHolding> findByPortfolioId(Long portfolioId, Sort sort);
 }
@@ -0,0 +1,7 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.UserNewsRead;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UserNewsReadRepository extends JpaRepository<UserNewsRead, Long> {
+}
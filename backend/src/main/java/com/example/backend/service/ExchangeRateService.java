@@ -1,21 +1,53 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.ExchangeRateStatus;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
-import java.net.HttpURLConnection;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * 行情价格缓存：TTL 内直接返回缓存；过期但未超过最长陈旧时间时先返回旧值并在后台刷新；
+ * 没有可用缓存时同步等待刷新，但最多等待 sync-wait-ms，上游刚失败过的一个 TTL 内也不再等待。
+ * 并发请求共享同一次上游调用（single-flight），上游失败或超时时沿用最近一次成功的结果，从未成功过才使用内置默认值。
+ * 调用方包括报告审批事务和定时估值，因此这里任何路径都不会无限期阻塞
+ */
 @Service
 @Slf4j
 public class ExchangeRateService {
     private final RestTemplate restTemplate;
     private final String COINGECKO_API_URL = "https://api.coingecko.com/api/v3/simple/price?ids=bitcoin,ethereum,solana,tether&vs_currencies=usd,cny&include_24hr_change=true";
 
-    public ExchangeRateService() {
+    private final long ttlMillis;
+    private final long maxStaleMillis;
+    private final long syncWaitMillis;
+    private final ExecutorService refresher;
+    private final AtomicReference<CompletableFuture<PriceSnapshot>> inFlight = new AtomicReference<>();
+    private volatile PriceSnapshot lastGood;
+    private volatile PriceSnapshot defaultSnapshot;
+    private volatile LocalDateTime lastFailureAt;
+    private volatile long lastFailureMillis;
+    private final AtomicLong upstreamCalls = new AtomicLong();
+    private final AtomicLong coalescedCalls = new AtomicLong();
+
+    public ExchangeRateService(@Value("${exchange-rates.ttl-seconds:60}") long ttlSeconds,
+                               @Value("${exchange-rates.max-stale-seconds:1800}") long maxStaleSeconds,
+                               @Value("${exchange-rates.sync-wait-ms:3000}") long syncWaitMillis) {
         // 配置RestTemplate，增加超时时间和本地代理
         SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
         factory.setConnectTimeout(10000); // 10秒连接超时
@@ -27,23 +59,138 @@ public class ExchangeRateService {
         factory.setProxy(proxy);
         
         this.restTemplate = new RestTemplate(factory);
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxStaleMillis = Math.max(maxStaleSeconds, ttlSeconds) * 1000;
+        this.syncWaitMillis = syncWaitMillis;
+        this.refresher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "exchange-rate-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
     }
 
     public Map<String, Map<String, Double>> getExchangeRates() {
-        try {
-            log.info("Fetching exchange rates from CoinGecko API: {}", COINGECKO_API_URL);
-            Map<String, Map<String, Double>> response = restTemplate.getForObject(COINGECKO_API_URL, Map.class);
-            if (response == null) {
-                log.error("Empty response from CoinGecko API");
-                return createDefaultExchangeRates();
+        return getPriceSnapshot().asCoinGeckoMap();
+    }
+
+    /**
+     * 返回当前可用的价格及其抓取时间，调用方可据此判断数据新旧
+     */
+    public PriceSnapshot getPriceSnapshot() {
+        PriceSnapshot cached = lastGood;
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.fetchedAtMillis() < ttlMillis) {
+            return cached;
+        }
+        if (cached != null && now - cached.fetchedAtMillis() < maxStaleMillis) {
+            // stale-while-revalidate：先返回旧值，后台刷新；上游刚失败过则等一个 TTL 再重试
+            if (now - lastFailureMillis >= ttlMillis) {
+                refresh();
             }
-            log.info("Successfully fetched exchange rates: {}", response);
-            return response;
-        } catch (Exception e) {
-            log.error("Failed to fetch exchange rates from CoinGecko API", e);
-            // 返回默认汇率作为备用
-            return createDefaultExchangeRates();
+            return cached;
+        }
+        if (now - lastFailureMillis < ttlMillis) {
+            // 与后台刷新相同的退避：上游刚失败过，不再发起调用，直接降级
+            return fallback();
+        }
+        try {
+            // 超时后刷新仍在后台继续，成功的结果留给后续请求
+            return refresh().get(syncWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return fallback();
+        } catch (ExecutionException ex) {
+            return fallback();
+        } catch (TimeoutException ex) {
+            log.warn("Exchange rate refresh did not finish within {} ms", syncWaitMillis);
+            return fallback();
+        }
+    }
+
+    public ExchangeRateStatus status() {
+        PriceSnapshot cached = lastGood;
+        long now = System.currentTimeMillis();
+        return ExchangeRateStatus.builder()
+                .fetchedAt(cached != null ? cached.fetchedAt() : null)
+                .ageSeconds(cached != null ? (now - cached.fetchedAtMillis()) / 1000 : null)
+                .stale(cached == null || now - cached.fetchedAtMillis() >= ttlMillis)
+                .ttlSeconds(ttlMillis / 1000)
+                .maxStaleSeconds(maxStaleMillis / 1000)
+                .refreshing(inFlight.get() != null)
+                .lastFailureAt(lastFailureAt)
+                .upstreamCalls(upstreamCalls.get())
+                .coalescedCalls(coalescedCalls.get())
+                .build();
+    }
+
+    /**
+     * 发起刷新；已有刷新在进行时直接复用它的结果，不重复调用上游
+     */
+    private CompletableFuture<PriceSnapshot> refresh() {
+        CompletableFuture<PriceSnapshot> future = new CompletableFuture<>();
+        CompletableFuture<PriceSnapshot> running = inFlight.compareAndExchange(null, future);
+        if (running != null) {
+            coalescedCalls.incrementAndGet();
+            return running;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    PriceSnapshot snapshot = fetch();
+                    lastGood = snapshot;
+                    future.complete(snapshot);
+                } catch (Exception e) {
+                    lastFailureAt = LocalDateTime.now();
+                    lastFailureMillis = System.currentTimeMillis();
+                    log.error("Failed to fetch exchange rates from CoinGecko API", e);
+                    future.completeExceptionally(e);
+                } finally {
+                    inFlight.compareAndSet(future, null);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inFlight.compareAndSet(future, null);
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    @SuppressWarnings("unchecked")
+    private PriceSnapshot fetch() {
+        upstreamCalls.incrementAndGet();
+        log.info("Fetching exchange rates from CoinGecko API: {}", COINGECKO_API_URL);
+        Map<String, Map<String, Object>> response = restTemplate.getForObject(COINGECKO_API_URL, Map.class);
+        if (response == null || response.isEmpty()) {
+            throw new IllegalStateException("Empty response from CoinGecko API");
+        }
+        PriceSnapshot snapshot = PriceSnapshot.fromCoinGecko(response, LocalDateTime.now(), System.currentTimeMillis(),
+                PriceSnapshot.Source.LIVE);
+        if (snapshot.isEmpty()) {
+            throw new IllegalStateException("No usable prices in CoinGecko response: " + response);
+        }
+        log.info("Successfully fetched exchange rates: {}", response);
+        return snapshot;
+    }
+
+    // 上游不可用：优先沿用最近一次成功的结果，无论多旧
+    private PriceSnapshot fallback() {
+        PriceSnapshot cached = lastGood;
+        if (cached != null) {
+            log.warn("Serving last known exchange rates fetched at {}", cached.fetchedAt());
+            return cached;
+        }
+        PriceSnapshot defaults = defaultSnapshot;
+        if (defaults == null) {
+            defaults = PriceSnapshot.fromCoinGecko(createDefaultExchangeRates(), null, System.currentTimeMillis(),
+                    PriceSnapshot.Source.DEFAULT);
+            defaultSnapshot = defaults;
         }
+        return defaults;
     }
 
     // 创建默认汇率作为备用
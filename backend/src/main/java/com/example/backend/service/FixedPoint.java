@@ -0,0 +1,136 @@
+package com.example.backend.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 估值热路径使用的定点数运算：数量、价格、市值、占比都存成按固定小数位放大的 long，
+ * 只在读写实体时与 BigDecimal 互转。数量 DECIMAL(18,4)、市值 DECIMAL(18,2)、占比 DECIMAL(6,2) 与表结构一致；
+ * 价格不舍入，按其十进制原值（与 BigDecimal.valueOf(double) 相同）放大到快照内统一的小数位。
+ * 市值先按 数量 × 价格 精确相乘，占比用未舍入的市值计算，结果与
+ * amount.multiply(price).setScale(2, HALF_UP) 和 value.divide(total, 4, HALF_UP).multiply(100) 相同；
+ * 乘积或求和超出 long 范围时返回 OVERFLOW，由调用方退回 BigDecimal 计算
+ */
+public final class FixedPoint {
+    public static final int AMOUNT_SCALE = 4;
+    public static final int MONEY_SCALE = 2;
+    public static final int PERCENT_SCALE = 2;
+    // 价格的小数位超过该值时不再用 long 表示，整轮估值退回 BigDecimal
+    public static final int MAX_PRICE_SCALE = 12;
+    public static final long OVERFLOW = Long.MIN_VALUE;
+
+    // 占比 = 比值保留 4 位小数再 ×100，即以 0.01 个百分点为单位的 4 位小数比值
+    private static final int RATIO_DIGITS = 4;
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private FixedPoint() {
+    }
+
+    public static long amount(BigDecimal amount) {
+        return scaled(amount, AMOUNT_SCALE);
+    }
+
+    public static long money(BigDecimal money) {
+        return scaled(money, MONEY_SCALE);
+    }
+
+    public static long percentage(BigDecimal percentage) {
+        return scaled(percentage, PERCENT_SCALE);
+    }
+
+    /**
+     * 未舍入的市值 = 数量 × 价格；数量为 AMOUNT_SCALE 位、价格为 priceScale 位时结果为 AMOUNT_SCALE + priceScale 位，
+     * 超出 long 范围返回 OVERFLOW
+     */
+    public static long exactValue(long amount, long price) {
+        long high = Math.multiplyHigh(amount, price);
+        long low = amount * price;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return low;
+        }
+        return OVERFLOW;
+    }
+
+    /**
+     * scale 位小数的定点值按 HALF_UP 舍入到分，scale 不小于 2
+     */
+    public static long money(long value, int scale) {
+        return divideHalfUp(value, POWERS_OF_TEN[scale - MONEY_SCALE]);
+    }
+
+    /**
+     * 分换算为 scale 位小数的定点值，超出 long 范围返回 OVERFLOW
+     */
+    public static long fromMoney(long money, int scale) {
+        long factor = POWERS_OF_TEN[scale - MONEY_SCALE];
+        long high = Math.multiplyHigh(money, factor);
+        long low = money * factor;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return low;
+        }
+        return OVERFLOW;
+    }
+
+    /**
+     * 占比 = part.divide(total, 4, HALF_UP) × 100，单位 0.01 个百分点；part 与 total 小数位相同，total 为 0 时返回 0。
+     * 逐位长除，中间值不超过 10 × total；total 大到 10 × total 超出 long 时退回 BigDecimal
+     */
+    public static long percentage(long part, long total) {
+        if (total == 0) {
+            return 0;
+        }
+        if (part != Long.MIN_VALUE && total != Long.MIN_VALUE && Math.abs(total) <= Long.MAX_VALUE / 10) {
+            long dividend = Math.abs(part);
+            long divisor = Math.abs(total);
+            long quotient = dividend / divisor;
+            long remainder = dividend % divisor;
+            // 商只有在 part 远大于 total 时才可能溢出，与 part 不超过 total 的正常占比无关
+            if (quotient <= Long.MAX_VALUE / POWERS_OF_TEN[RATIO_DIGITS + 1]) {
+                for (int i = 0; i < RATIO_DIGITS; i++) {
+                    remainder *= 10;
+                    quotient = quotient * 10 + remainder / divisor;
+                    remainder %= divisor;
+                }
+                if (remainder >= divisor - remainder) {
+                    quotient++;
+                }
+                return (part < 0) == (total < 0) ? quotient : -quotient;
+            }
+        }
+        return BigDecimal.valueOf(part)
+                .divide(BigDecimal.valueOf(total), RATIO_DIGITS, RoundingMode.HALF_UP)
+                .unscaledValue()
+                .longValueExact();
+    }
+
+    public static BigDecimal toMoney(long money) {
+        return BigDecimal.valueOf(money, MONEY_SCALE);
+    }
+
+    public static BigDecimal toPercentage(long percentage) {
+        return BigDecimal.valueOf(percentage, PERCENT_SCALE);
+    }
+
+    /**
+     * 整数除法，余数达到除数一半时远离零进位（HALF_UP）
+     */
+    static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder >= Math.abs(divisor) - remainder) {
+            quotient += (dividend < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+
+    private static long scaled(BigDecimal value, int scale) {
+        return value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
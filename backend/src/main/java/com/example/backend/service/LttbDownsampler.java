@@ -0,0 +1,66 @@
+package com.example.backend.service;
+
+/**
+ * Largest-Triangle-Three-Buckets 降采样：保留首尾点，其余点分桶，每桶选出与前一个已选点、
+ * 下一桶均值点构成三角形面积最大的点，折线的峰谷形状得以保留
+ */
+final class LttbDownsampler {
+    static final int MIN_POINTS = 3;
+
+    private LttbDownsampler() {
+    }
+
+    /**
+     * 返回被选中点的下标（升序）；点数不超过 threshold 时全部返回
+     */
+    static int[] select(double[] xs, double[] ys, int threshold) {
+        int n = xs.length;
+        if (threshold >= n || threshold < MIN_POINTS) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        int[] selected = new int[threshold];
+        double bucketSize = (double) (n - 2) / (threshold - 2);
+        int previous = 0;
+        selected[0] = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+
+            // 下一桶的均值点，最后一桶以终点代替
+            int nextStart = end;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            if (nextStart >= n - 1 || nextStart >= nextEnd) {
+                avgX = xs[n - 1];
+                avgY = ys[n - 1];
+            } else {
+                for (int i = nextStart; i < nextEnd; i++) {
+                    avgX += xs[i];
+                    avgY += ys[i];
+                }
+                avgX /= nextEnd - nextStart;
+                avgY /= nextEnd - nextStart;
+            }
+
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((xs[previous] - avgX) * (ys[i] - ys[previous])
+                        - (xs[previous] - xs[i]) * (avgY - ys[previous]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            selected[bucket + 1] = chosen;
+            previous = chosen;
+        }
+        selected[threshold - 1] = n - 1;
+        return selected;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.backend.service;
 
 import com.example.backend.dto.MetricsDto;
+import com.example.backend.model.PortfolioHolding;
 import com.example.backend.model.ReportStatus;
 import com.example.backend.repository.NewsRepository;
 import com.example.backend.repository.PortfolioHoldingRepository;
@@ -9,6 +10,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -16,15 +18,29 @@ public class MetricsService {
     private final NewsRepository newsRepository;
     private final ReportRepository reportRepository;
     private final PortfolioHoldingRepository portfolioHoldingRepository;
+    private final NewsUnreadCounter unreadCounter;
+    private final NewsReadStateService readState;
 
-    public MetricsDto loadMetrics() {
-        long unread = newsRepository.countByReadFalse();
+    public MetricsDto loadMetrics(String username) {
+        // 带用户名时按该用户的已读位图计算；否则取全局未读计数，仅在启动后首次统计完成前回退到数据库
+        Long userId = readState.resolveUser(username);
+        long unread;
+        Map<String, Map<String, Long>> unreadByCoin;
+        if (userId != null) {
+            unread = readState.unreadCount(userId, null, null);
+            unreadByCoin = readState.unreadBreakdown(userId);
+        } else {
+            unread = unreadCounter.isReady() ? unreadCounter.total() : newsRepository.countUnread();
+            unreadByCoin = unreadCounter.breakdown();
+        }
         long pendingReports = reportRepository.countByStatus(ReportStatus.PENDING);
-        BigDecimal totalAssetValue = portfolioHoldingRepository.findAll().stream()
+        BigDecimal totalAssetValue = portfolioHoldingRepository
+                .findByPortfolioId(PortfolioHolding.DEFAULT_PORTFOLIO_ID).stream()
                 .map(h -> h.getValueUsd() == null ? BigDecimal.ZERO : h.getValueUsd())
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
         return MetricsDto.builder()
                 .unreadNews(unread)
+                .unreadByCoin(unreadByCoin)
                 .pendingReports(pendingReports)
                 .totalAssetValue(totalAssetValue)
                 .build();
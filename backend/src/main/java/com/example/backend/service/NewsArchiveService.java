@@ -0,0 +1,229 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.NewsRepository;
+import com.example.backend.repository.NewsRepository.UnreadCount;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * news 表分区维护与历史归档：
+ * 1. 从 p_future 拆出未来若干个月的月分区，保证新数据总是落在按月分区里（启动时也检查一次，init.sql 中的分区只覆盖到建表时）；
+ * 2. 把发布时间早于保留期限的新闻分批迁入压缩行格式的 news_archive 表，被报告引用的新闻保留在原表；
+ * 3. 迁空的历史分区直接 DROP PARTITION 回收空间，不留下碎片
+ */
+@Service
+@Slf4j
+public class NewsArchiveService {
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final Pattern PARTITION_NAME = Pattern.compile("p(_history|\\d{6})");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String NEWS_COLUMNS = "id, title, summary, coin, sentiment, source_url, published_at, is_read";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NewsService newsService;
+    private final NewsRepository newsRepository;
+    private final NewsUnreadCounter unreadCounter;
+    private final boolean enabled;
+    private final int retainMonths;
+    private final int futureMonths;
+    private final int batchSize;
+
+    public NewsArchiveService(JdbcTemplate jdbcTemplate,
+                              NamedParameterJdbcTemplate namedJdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              NewsService newsService,
+                              NewsRepository newsRepository,
+                              NewsUnreadCounter unreadCounter,
+                              @Value("${news.archive.enabled:true}") boolean enabled,
+                              @Value("${news.archive.retain-months:36}") int retainMonths,
+                              @Value("${news.partition.future-months:3}") int futureMonths,
+                              @Value("${news.archive.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.newsService = newsService;
+        this.newsRepository = newsRepository;
+        this.unreadCounter = unreadCounter;
+        this.enabled = enabled;
+        this.retainMonths = retainMonths;
+        this.futureMonths = futureMonths;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensurePartitionsOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ensureFuturePartitions();
+        } catch (RuntimeException ex) {
+            log.error("Failed to add monthly news partitions on startup", ex);
+        }
+    }
+
+    @Scheduled(cron = "${news.archive.cron:0 30 3 * * *}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ensureFuturePartitions();
+            LocalDateTime cutoff = LocalDate.now().withDayOfMonth(1).minusMonths(retainMonths).atStartOfDay();
+            int archived = archiveBefore(cutoff);
+            int dropped = dropEmptyPartitionsBefore(cutoff.toLocalDate());
+            log.info("News archive run: {} news archived before {}, {} empty partitions dropped",
+                    archived, cutoff, dropped);
+        } catch (RuntimeException ex) {
+            log.error("News archive run failed", ex);
+        }
+    }
+
+    /**
+     * 保证 p_future 之前至少已有覆盖到 当前月 + futureMonths 的月分区；表未分区时不做任何处理
+     */
+    void ensureFuturePartitions() {
+        List<Partition> partitions = loadPartitions();
+        if (partitions.stream().noneMatch(partition -> FUTURE_PARTITION.equals(partition.name()))) {
+            return;
+        }
+        LocalDate upper = partitions.stream()
+                .map(Partition::upperBound)
+                .filter(bound -> bound != null)
+                .max(LocalDate::compareTo)
+                .orElse(LocalDate.now().withDayOfMonth(1));
+        LocalDate target = LocalDate.now().withDayOfMonth(1).plusMonths(futureMonths + 1L);
+        if (!upper.isBefore(target)) {
+            return;
+        }
+        List<String> definitions = new ArrayList<>();
+        for (LocalDate month = upper; month.isBefore(target); month = month.plusMonths(1)) {
+            definitions.add("PARTITION p" + month.format(PARTITION_SUFFIX)
+                    + " VALUES LESS THAN ('" + month.plusMonths(1) + "')");
+        }
+        definitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE news REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO ("
+                + String.join(", ", definitions) + ")");
+        log.info("Added {} monthly news partitions up to {}", definitions.size() - 1, target);
+    }
+
+    /**
+     * 分批把 cutoff 之前且未被报告引用的新闻迁入 news_archive，每批在同一事务内插入并删除。
+     * report_news 没有指向分区表 news 的外键，由两边的行锁代替：归档事务先对候选新闻加排他锁再读取引用，
+     * 新建报告时对引用的新闻加共享锁（NewsRepository.findAllByIdForShare），两者串行，不会留下悬空引用。
+     * 迁出的未读分布在同一事务内统计，提交后再扣减未读计数，回滚时计数不变
+     */
+    int archiveBefore(LocalDateTime cutoff) {
+        int archived = 0;
+        while (true) {
+            List<Long> candidates = jdbcTemplate.queryForList(
+                    "SELECT n.id FROM news n WHERE n.published_at < ?"
+                            + " AND NOT EXISTS (SELECT 1 FROM report_news rn WHERE rn.news_id = n.id)"
+                            + " ORDER BY n.published_at, n.id LIMIT ?",
+                    Long.class, cutoff, batchSize);
+            if (candidates.isEmpty()) {
+                return archived;
+            }
+            ArchivedBatch batch = transactionTemplate.execute(status -> {
+                MapSqlParameterSource candidateParams = new MapSqlParameterSource()
+                        .addValue("ids", candidates)
+                        .addValue("cutoff", cutoff);
+                // 先加锁，等持有共享锁的报告事务提交后，下面的普通读才能看到它写入的引用
+                namedJdbcTemplate.queryForList("SELECT id FROM news WHERE id IN (:ids) AND published_at < :cutoff"
+                        + " FOR UPDATE", candidateParams, Long.class);
+                Set<Long> referenced = new HashSet<>(namedJdbcTemplate.queryForList(
+                        "SELECT news_id FROM report_news WHERE news_id IN (:ids)", candidateParams, Long.class));
+                List<Long> unreferenced = candidates.stream().filter(id -> !referenced.contains(id)).toList();
+                if (unreferenced.isEmpty()) {
+                    return new ArchivedBatch(unreferenced, List.of());
+                }
+                List<UnreadCount> unread = newsRepository.countUnreadGroupedByIds(unreferenced);
+                MapSqlParameterSource params = new MapSqlParameterSource()
+                        .addValue("ids", unreferenced)
+                        .addValue("cutoff", cutoff);
+                namedJdbcTemplate.update("INSERT INTO news_archive (" + NEWS_COLUMNS + ") SELECT " + NEWS_COLUMNS
+                        + " FROM news WHERE id IN (:ids) AND published_at < :cutoff", params);
+                namedJdbcTemplate.update("DELETE FROM news WHERE id IN (:ids) AND published_at < :cutoff", params);
+                return new ArchivedBatch(unreferenced, unread);
+            });
+            if (batch != null && !batch.ids().isEmpty()) {
+                unreadCounter.decrement(batch.unread());
+                newsService.onNewsArchived(batch.ids());
+                archived += batch.ids().size();
+            }
+            if (candidates.size() < batchSize) {
+                return archived;
+            }
+        }
+    }
+
+    /**
+     * 删除上界不晚于 cutoff 且已经迁空的分区；仍有被引用新闻的分区保留
+     */
+    int dropEmptyPartitionsBefore(LocalDate cutoff) {
+        int dropped = 0;
+        List<Partition> partitions = loadPartitions();
+        // 至少保留一个有界分区，避免只剩 p_future
+        long bounded = partitions.stream().filter(partition -> partition.upperBound() != null).count();
+        for (Partition partition : partitions) {
+            if (partition.upperBound() == null || partition.upperBound().isAfter(cutoff) || bounded <= 1) {
+                continue;
+            }
+            if (!PARTITION_NAME.matcher(partition.name()).matches()) {
+                continue;
+            }
+            Integer rows = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM (SELECT 1 FROM news PARTITION (" + partition.name() + ") LIMIT 1) t",
+                    Integer.class);
+            if (rows != null && rows == 0) {
+                jdbcTemplate.execute("ALTER TABLE news DROP PARTITION " + partition.name());
+                dropped++;
+                bounded--;
+            }
+        }
+        return dropped;
+    }
+
+    private List<Partition> loadPartitions() {
+        return jdbcTemplate.query(
+                "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS"
+                        + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'news' AND PARTITION_NAME IS NOT NULL"
+                        + " ORDER BY PARTITION_ORDINAL_POSITION",
+                (rs, rowNum) -> new Partition(rs.getString(1), parseBound(rs.getString(2))));
+    }
+
+    /**
+     * RANGE COLUMNS 的分区描述形如 '2026-01-01' 或 '2026-01-01 00:00:00'，MAXVALUE 返回 null
+     */
+    private static LocalDate parseBound(String description) {
+        if (description == null || "MAXVALUE".equalsIgnoreCase(description.trim())) {
+            return null;
+        }
+        return LocalDate.parse(description.replace("'", "").trim().substring(0, 10));
+    }
+
+    private record ArchivedBatch(List<Long> ids, List<UnreadCount> unread) {
+    }
+
+    private record Partition(String name, LocalDate upperBound) {
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.NewsDto;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 新入库新闻的 SSE 推送。
+ * 订阅连接走 Servlet 异步请求，空闲订阅者不占用线程；导入线程只把新闻放入各订阅者的有界队列，
+ * 由少量发送线程逐个订阅者串行发送。队列写满说明客户端消费跟不上，直接断开该订阅者，由客户端自行重连；
+ * 单次发送阻塞超过发送超时（客户端不读取、TCP 窗口写满）时同样断开，并中断发送线程，避免占住有限的发送线程
+ */
+@Component
+@Slf4j
+public class NewsEventStream {
+    private final long timeoutMillis;
+    private final int queueCapacity;
+    private final int maxSubscribers;
+    private final long sendTimeoutNanos;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // 订阅名额，先占后加入集合，保证并发订阅时不会超过上限
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService sender;
+    private final AtomicLong evicted = new AtomicLong();
+
+    public NewsEventStream(@Value("${news.stream.timeout-minutes:30}") long timeoutMinutes,
+                           @Value("${news.stream.queue-capacity:256}") int queueCapacity,
+                           @Value("${news.stream.max-subscribers:10000}") int maxSubscribers,
+                           @Value("${news.stream.sender-threads:2}") int senderThreads,
+                           @Value("${news.stream.send-timeout-ms:10000}") long sendTimeoutMillis) {
+        this.timeoutMillis = timeoutMinutes * 60_000;
+        this.queueCapacity = queueCapacity;
+        this.maxSubscribers = maxSubscribers;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "news-sse-sender-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscribers.forEach(subscriber -> {
+            if (remove(subscriber)) {
+                subscriber.emitter.complete();
+            }
+        });
+        sender.shutdownNow();
+    }
+
+    /**
+     * 建立订阅，coin/sentiment 为空表示不过滤；sentiment 取小写名称，与 NewsDto 中的格式一致
+     */
+    public SseEmitter subscribe(String coin, String sentiment) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "too many news stream subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, coin, sentiment, new ArrayBlockingQueue<>(queueCapacity));
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(ex -> remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    /**
+     * 由导入路径调用，只做过滤和入队，不在调用线程上写网络
+     */
+    public void publish(List<NewsDto> newsList) {
+        if (newsList.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            boolean queued = false;
+            for (NewsDto news : newsList) {
+                if (!subscriber.matches(news)) {
+                    continue;
+                }
+                if (!subscriber.queue.offer(news)) {
+                    log.info("Evicting slow news stream subscriber, {} events pending, {} evicted so far",
+                            subscriber.queue.size(), evicted.incrementAndGet());
+                    close(subscriber);
+                    queued = false;
+                    break;
+                }
+                queued = true;
+            }
+            if (queued) {
+                schedule(subscriber, false);
+            }
+        }
+    }
+
+    /**
+     * 定时发送注释行作为心跳，既防止中间代理断开空闲连接，也能及时清理已断开的客户端
+     */
+    @Scheduled(fixedDelayString = "${news.stream.heartbeat-ms:30000}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> schedule(subscriber, true));
+    }
+
+    /**
+     * 发送看门狗：单次发送阻塞超过发送超时的订阅者立即移出，并中断其发送线程；
+     * 不在这里 complete，由发送线程在 send 返回或失败后自行关闭
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void evictStalledSenders() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            synchronized (subscriber) {
+                if (subscriber.sendingThread != null && now - subscriber.sendStartedAt > sendTimeoutNanos
+                        && remove(subscriber)) {
+                    log.info("Evicting stalled news stream subscriber, send blocked for {} ms, {} evicted so far",
+                            TimeUnit.NANOSECONDS.toMillis(now - subscriber.sendStartedAt), evicted.incrementAndGet());
+                    subscriber.queue.clear();
+                    subscriber.sendingThread.interrupt();
+                }
+            }
+        }
+    }
+
+    private void schedule(Subscriber subscriber, boolean ping) {
+        // 同一订阅者同时只有一个发送任务，保证事件顺序且不会并发写同一个响应
+        if (subscriber.sending.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber, ping));
+        }
+    }
+
+    private void drain(Subscriber subscriber, boolean ping) {
+        try {
+            if (ping && subscribers.contains(subscriber)) {
+                send(subscriber, SseEmitter.event().comment("ping"));
+            }
+            NewsDto news;
+            while (subscribers.contains(subscriber) && (news = subscriber.queue.poll()) != null) {
+                send(subscriber, SseEmitter.event()
+                        .name("news")
+                        .id(String.valueOf(news.getId()))
+                        .data(news));
+            }
+        } catch (IOException | IllegalStateException ex) {
+            remove(subscriber);
+            subscriber.queue.clear();
+        } finally {
+            subscriber.sending.set(false);
+        }
+        if (!subscribers.contains(subscriber)) {
+            // 已被移出（队列写满、发送超时或发送失败），统一在发送线程上完成关闭
+            subscriber.emitter.complete();
+            return;
+        }
+        // 发送期间可能有新事件入队而调度被跳过，这里补一次
+        if (!subscriber.queue.isEmpty()) {
+            schedule(subscriber, false);
+        }
+    }
+
+    /**
+     * 记录发送开始时间和发送线程供看门狗检查；发送结束后清除看门狗可能留下的中断标记，避免影响线程池中的下一个任务
+     */
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        synchronized (subscriber) {
+            subscriber.sendStartedAt = System.nanoTime();
+            subscriber.sendingThread = Thread.currentThread();
+        }
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            synchronized (subscriber) {
+                subscriber.sendingThread = null;
+                Thread.interrupted();
+            }
+        }
+    }
+
+    /**
+     * 移出订阅者并交给发送线程关闭：complete 与进行中的 send 争用同一把锁，不能在导入线程上调用
+     */
+    private void close(Subscriber subscriber) {
+        if (remove(subscriber)) {
+            subscriber.queue.clear();
+            schedule(subscriber, false);
+        }
+    }
+
+    private boolean remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final String coin;
+        private final String sentiment;
+        private final ArrayBlockingQueue<NewsDto> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        // 正在阻塞发送的线程及开始时间，由 send 与看门狗在订阅者监视器下读写
+        private Thread sendingThread;
+        private long sendStartedAt;
+
+        Subscriber(SseEmitter emitter, String coin, String sentiment, ArrayBlockingQueue<NewsDto> queue) {
+            this.emitter = emitter;
+            this.coin = coin;
+            this.sentiment = sentiment;
+            this.queue = queue;
+        }
+
+        boolean matches(NewsDto news) {
+            return (coin == null || coin.equals(news.getCoin()))
+                    && (sentiment == null || sentiment.equals(news.getSentiment()));
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.NewsExportRow;
+import com.example.backend.repository.NewsHistoryRepository;
+import com.example.backend.repository.NewsRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 新闻全量导出：沿只进游标逐行读取并直接写入响应，每行写完即可回收，
+ * 内存占用与导出行数无关。先导出 news_archive 再导出 news，两张表各自按发布时间升序；
+ * 归档的新闻整体早于 news 表，只有被报告引用而留在 news 表中的旧新闻会排在归档新闻之后
+ */
+@Service
+@Slf4j
+public class NewsExportService {
+    static final int FLUSH_EVERY_ROWS = 1000;
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String CSV_HEADER = "id,title,summary,coin,sentiment,sourceUrl,publishedAt,read";
+
+    private final NewsService newsService;
+    private final NewsRepository newsRepository;
+    private final NewsHistoryRepository newsHistoryRepository;
+    private final ObjectMapper objectMapper;
+
+    public NewsExportService(NewsService newsService, NewsRepository newsRepository,
+                             NewsHistoryRepository newsHistoryRepository, ObjectMapper objectMapper) {
+        this.newsService = newsService;
+        this.newsRepository = newsRepository;
+        this.newsHistoryRepository = newsHistoryRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public static Format parseFormat(String format) {
+        try {
+            return Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid format, expected csv or ndjson");
+        }
+    }
+
+    /**
+     * 游标需要在事务内消费，整个导出期间占用一个数据库连接；两个游标依次打开，前一个读完关闭后才查询下一张表
+     */
+    @Transactional
+    public long export(String coin, String sentiment, String from, String to, Format format, OutputStream output)
+            throws IOException {
+        long started = System.currentTimeMillis();
+        NewsService.ExportFilter filter = newsService.exportFilter(coin, sentiment, from, to);
+        Sort sort = Sort.by(Sort.Direction.ASC, "publishedAt", "id");
+        Supplier<Stream<NewsExportRow>> archived = () -> newsHistoryRepository.streamArchivedExportRows(
+                filter.coin(), filter.sentiment(), filter.from(), filter.to());
+        Supplier<Stream<NewsExportRow>> live = () -> newsRepository.streamExportRows(
+                newsService.exportSpecification(filter), sort);
+        long rows;
+        try (SequentialRows sequential = new SequentialRows(List.of(archived, live))) {
+            rows = format == Format.CSV ? writeCsv(sequential, output) : writeNdjson(sequential, output);
+        }
+        log.info("Exported {} news rows as {} in {} ms", rows, format, System.currentTimeMillis() - started);
+        return rows;
+    }
+
+    private long writeNdjson(Iterator<NewsExportRow> rows, OutputStream output) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+        generator.setRootValueSeparator(null);
+        long count = 0;
+        while (rows.hasNext()) {
+            NewsExportRow row = rows.next();
+            generator.writeStartObject();
+            generator.writeNumberField("id", row.id());
+            generator.writeStringField("title", row.title());
+            generator.writeStringField("summary", row.summary());
+            generator.writeStringField("coin", row.coin());
+            generator.writeStringField("sentiment", sentimentName(row));
+            generator.writeStringField("sourceUrl", row.sourceUrl());
+            generator.writeStringField("publishedAt", row.publishedAt() != null ? row.publishedAt().format(TIME_FORMATTER) : null);
+            generator.writeBooleanField("read", Boolean.TRUE.equals(row.read()));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            if (++count % FLUSH_EVERY_ROWS == 0) {
+                generator.flush();
+            }
+        }
+        generator.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterator<NewsExportRow> rows, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        long count = 0;
+        while (rows.hasNext()) {
+            NewsExportRow row = rows.next();
+            writer.write(String.valueOf(row.id()));
+            writer.write(',');
+            writeCsvField(writer, row.title());
+            writer.write(',');
+            writeCsvField(writer, row.summary());
+            writer.write(',');
+            writeCsvField(writer, row.coin());
+            writer.write(',');
+            writeCsvField(writer, sentimentName(row));
+            writer.write(',');
+            writeCsvField(writer, row.sourceUrl());
+            writer.write(',');
+            writeCsvField(writer, row.publishedAt() != null ? row.publishedAt().format(TIME_FORMATTER) : null);
+            writer.write(',');
+            writer.write(Boolean.TRUE.equals(row.read()) ? "true" : "false");
+            writer.write("\r\n");
+            if (++count % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    // RFC 4180：含逗号、引号或换行的字段用双引号包裹，内部引号写两次
+    private void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private String sentimentName(NewsExportRow row) {
+        return row.sentiment() != null ? row.sentiment().name().toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * 依次读取多个游标：前一个读完并关闭后才打开下一个。不用 Stream.flatMap 拼接，
+     * 它的 iterator() 会把整个内层流先读进缓冲区
+     */
+    static final class SequentialRows implements Iterator<NewsExportRow>, AutoCloseable {
+        private final Iterator<Supplier<Stream<NewsExportRow>>> sources;
+        private Stream<NewsExportRow> current;
+        private Iterator<NewsExportRow> rows = Collections.emptyIterator();
+
+        SequentialRows(List<Supplier<Stream<NewsExportRow>>> sources) {
+            this.sources = sources.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!rows.hasNext()) {
+                close();
+                if (!sources.hasNext()) {
+                    return false;
+                }
+                current = sources.next().get();
+                rows = current.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public NewsExportRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return rows.next();
+        }
+
+        @Override
+        public void close() {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+    }
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 列表查询的热数据窗口：默认只查询最近若干个自然月，对应 news 表按月分区中的最近几个分区，
+ * 查询条件带上 published_at 下界后 MySQL 可做分区裁剪，历史分区不会被读入缓冲池
+ */
+@Component
+public class NewsHotWindow {
+    private final int hotMonths;
+
+    public NewsHotWindow(@Value("${news.partition.hot-months:12}") int hotMonths) {
+        this.hotMonths = hotMonths;
+    }
+
+    /**
+     * 热窗口起点，按月对齐到分区边界
+     */
+    public LocalDateTime cutoff() {
+        return LocalDate.now().withDayOfMonth(1).minusMonths(hotMonths - 1L).atStartOfDay();
+    }
+}
@@ -0,0 +1,414 @@
+package com.example.backend.service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * 新闻ID的压缩位图，按 Roaring 的方式分桶：ID 的高位作为桶键，低 16 位放进桶内容器。
+ * 桶内元素不超过 4096 个时用有序 char 数组，超过后转为 65536 位的位图，稀疏和稠密的ID段都只占少量空间。
+ * 本类不是线程安全的，由调用方加锁
+ */
+final class NewsIdBitmap {
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte ARRAY_CONTAINER = 0;
+    private static final byte BITMAP_CONTAINER = 1;
+
+    private long[] keys = new long[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    boolean add(long id) {
+        int index = indexOf(id >>> 16);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, id >>> 16, new ArrayContainer());
+        }
+        Container container = containers[index];
+        boolean added = container.add((char) id);
+        if (container instanceof ArrayContainer array && array.cardinality > ARRAY_MAX) {
+            containers[index] = array.toBitmap();
+        }
+        return added;
+    }
+
+    boolean remove(long id) {
+        int index = indexOf(id >>> 16);
+        if (index < 0) {
+            return false;
+        }
+        Container container = containers[index];
+        boolean removed = container.remove((char) id);
+        if (container.cardinality() == 0) {
+            removeContainer(index);
+        } else if (container instanceof BitmapContainer bitmap && bitmap.cardinality <= ARRAY_MAX / 2) {
+            containers[index] = bitmap.toArray();
+        }
+        return removed;
+    }
+
+    boolean contains(long id) {
+        int index = indexOf(id >>> 16);
+        return index >= 0 && containers[index].contains((char) id);
+    }
+
+    long cardinality() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].cardinality();
+        }
+        return total;
+    }
+
+    /**
+     * |this ∩ other|，只在两者共有的桶上逐容器计算
+     */
+    long andCardinality(NewsIdBitmap other) {
+        long total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            int cmp = Long.compare(keys[i], other.keys[j]);
+            if (cmp == 0) {
+                total += containers[i].andCardinality(other.containers[j]);
+                i++;
+                j++;
+            } else if (cmp < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * this \ other（差集），逐桶计算并返回新位图，两者都不修改
+     */
+    NewsIdBitmap andNot(NewsIdBitmap other) {
+        NewsIdBitmap result = new NewsIdBitmap();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Container difference = j < other.size && other.keys[j] == keys[i]
+                    ? containers[i].andNot(other.containers[j])
+                    : containers[i].andNot(null);
+            if (difference.cardinality() > 0) {
+                result.insertContainer(result.size, keys[i], difference);
+            }
+        }
+        return result;
+    }
+
+    void forEach(LongConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            long high = keys[i] << 16;
+            containers[i].forEach(low -> consumer.accept(high | low));
+        }
+    }
+
+    /**
+     * 序列化格式：版本号、桶数，每个桶依次为 桶键、容器类型、元素数、容器内容
+     */
+    byte[] serialize() {
+        int bytes = 1 + 4;
+        for (int i = 0; i < size; i++) {
+            bytes += 8 + 1 + 4 + containers[i].serializedSize();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        buffer.put(FORMAT_VERSION);
+        buffer.putInt(size);
+        for (int i = 0; i < size; i++) {
+            buffer.putLong(keys[i]);
+            containers[i].write(buffer);
+        }
+        return buffer.array();
+    }
+
+    static NewsIdBitmap deserialize(byte[] data) {
+        NewsIdBitmap bitmap = new NewsIdBitmap();
+        if (data == null || data.length == 0) {
+            return bitmap;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        byte version = buffer.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("unsupported bitmap format: " + version);
+        }
+        int count = buffer.getInt();
+        bitmap.keys = new long[Math.max(4, count)];
+        bitmap.containers = new Container[Math.max(4, count)];
+        for (int i = 0; i < count; i++) {
+            bitmap.keys[i] = buffer.getLong();
+            byte type = buffer.get();
+            int cardinality = buffer.getInt();
+            bitmap.containers[i] = type == BITMAP_CONTAINER
+                    ? BitmapContainer.read(buffer, cardinality)
+                    : ArrayContainer.read(buffer, cardinality);
+        }
+        bitmap.size = count;
+        return bitmap;
+    }
+
+    private int indexOf(long key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertContainer(int index, long key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        containers[--size] = null;
+    }
+
+    private interface Container {
+        boolean add(char value);
+
+        boolean remove(char value);
+
+        boolean contains(char value);
+
+        int cardinality();
+
+        int andCardinality(Container other);
+
+        /**
+         * 返回 this \ other 的新容器，other 为 null 时返回副本
+         */
+        Container andNot(Container other);
+
+        void forEach(LongConsumer consumer);
+
+        int serializedSize();
+
+        void write(ByteBuffer buffer);
+    }
+
+    private static final class ArrayContainer implements Container {
+        private char[] values = new char[4];
+        private int cardinality;
+
+        @Override
+        public boolean add(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return false;
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(cardinality * 2, ARRAY_MAX + 1));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return true;
+        }
+
+        @Override
+        public boolean remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+            cardinality--;
+            return true;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public int andCardinality(Container other) {
+            int total = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i])) {
+                    total++;
+                }
+            }
+            return total;
+        }
+
+        @Override
+        public Container andNot(Container other) {
+            ArrayContainer result = new ArrayContainer();
+            result.values = new char[Math.max(4, cardinality)];
+            for (int i = 0; i < cardinality; i++) {
+                if (other == null || !other.contains(values[i])) {
+                    result.values[result.cardinality++] = values[i];
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public void forEach(LongConsumer consumer) {
+            for (int i = 0; i < cardinality; i++) {
+                consumer.accept(values[i]);
+            }
+        }
+
+        @Override
+        public int serializedSize() {
+            return cardinality * 2;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer) {
+            buffer.put(ARRAY_CONTAINER);
+            buffer.putInt(cardinality);
+            for (int i = 0; i < cardinality; i++) {
+                buffer.putChar(values[i]);
+            }
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+
+        static ArrayContainer read(ByteBuffer buffer, int cardinality) {
+            ArrayContainer container = new ArrayContainer();
+            container.values = new char[Math.max(4, cardinality)];
+            for (int i = 0; i < cardinality; i++) {
+                container.values[i] = buffer.getChar();
+            }
+            container.cardinality = cardinality;
+            return container;
+        }
+    }
+
+    private static final class BitmapContainer implements Container {
+        private final long[] words = new long[BITMAP_WORDS];
+        private int cardinality;
+
+        @Override
+        public boolean add(char value) {
+            long mask = 1L << value;
+            int word = value >>> 6;
+            if ((words[word] & mask) != 0) {
+                return false;
+            }
+            words[word] |= mask;
+            cardinality++;
+            return true;
+        }
+
+        @Override
+        public boolean remove(char value) {
+            long mask = 1L << value;
+            int word = value >>> 6;
+            if ((words[word] & mask) == 0) {
+                return false;
+            }
+            words[word] &= ~mask;
+            cardinality--;
+            return true;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public int andCardinality(Container other) {
+            if (other instanceof BitmapContainer bitmap) {
+                int total = 0;
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    total += Long.bitCount(words[i] & bitmap.words[i]);
+                }
+                return total;
+            }
+            return other.andCardinality(this);
+        }
+
+        @Override
+        public Container andNot(Container other) {
+            BitmapContainer result = new BitmapContainer();
+            System.arraycopy(words, 0, result.words, 0, BITMAP_WORDS);
+            result.cardinality = cardinality;
+            if (other instanceof BitmapContainer bitmap) {
+                result.cardinality = 0;
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    result.words[i] &= ~bitmap.words[i];
+                    result.cardinality += Long.bitCount(result.words[i]);
+                }
+            } else if (other != null) {
+                other.forEach(value -> result.remove((char) value));
+            }
+            return result.cardinality <= ARRAY_MAX ? result.toArray() : result;
+        }
+
+        @Override
+        public void forEach(LongConsumer consumer) {
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    consumer.accept(((long) i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        public int serializedSize() {
+            return BITMAP_WORDS * 8;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer) {
+            buffer.put(BITMAP_CONTAINER);
+            buffer.putInt(cardinality);
+            for (long word : words) {
+                buffer.putLong(word);
+            }
+        }
+
+        ArrayContainer toArray() {
+            ArrayContainer array = new ArrayContainer();
+            array.values = new char[Math.max(4, cardinality)];
+            forEach(value -> array.values[array.cardinality++] = (char) value);
+            return array;
+        }
+
+        static BitmapContainer read(ByteBuffer buffer, int cardinality) {
+            BitmapContainer container = new BitmapContainer();
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                container.words[i] = buffer.getLong();
+            }
+            container.cardinality = cardinality;
+            return container;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.NewsIngestQueueStats;
+import com.example.backend.dto.NewsIngestRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 新闻异步导入队列：请求线程只做校验和入队，单个写线程按批次落库。
+ * 队列容量有界，满时拒绝入队由调用方返回 429，单次提交超过批量上限（不大于队列容量）时直接返回 413；票据按入队顺序递增，写线程按 FIFO 处理，
+ * 因此不大于 processedThrough 的票据均已处理完毕。入队前按 NewsIngestRequest 的约束逐条校验，不合法的整批返回 400；
+ * 一批写库失败时逐条重试，只有单独写入仍失败的票据记为失败
+ */
+@Component
+@Slf4j
+public class NewsIngestQueue {
+    // 写库失败的票据只返回通用错误，具体异常记录在日志中
+    private static final String PERSIST_FAILED = "persist failed";
+
+    private final NewsService newsService;
+    private final NewsNearDuplicateIndex nearDuplicateIndex;
+    private final Validator validator;
+    private final int capacity;
+    private final int batchSize;
+    private final int maxRequestSize;
+    private final int retryAfterSeconds;
+    private final ArrayBlockingQueue<QueuedNews> queue;
+    // 入队许可，写线程在一批落库完成后才归还，正在写的批次也计入队列占用
+    private final Semaphore permits;
+    private final AtomicLong ticketSequence = new AtomicLong();
+    private final AtomicLong processedThrough = new AtomicLong();
+    private final Object enqueueLock = new Object();
+    // 失败的票据全部保留（压缩位图，连续票据占用很少），状态查询不会把淘汰掉的失败票据误报为 done；访问时对自身加锁
+    private final NewsIdBitmap failedTickets = new NewsIdBitmap();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile int lastBatchSize;
+    private volatile double drainRatePerSecond;
+
+    private Thread writer;
+    private volatile boolean running;
+
+    public NewsIngestQueue(NewsService newsService, NewsNearDuplicateIndex nearDuplicateIndex, Validator validator,
+                           @Value("${news.ingest.queue.capacity:10000}") int capacity,
+                           @Value("${news.ingest.queue.batch-size:500}") int batchSize,
+                           @Value("${news.ingest.queue.max-request-size:1000}") int maxRequestSize,
+                           @Value("${news.ingest.queue.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.newsService = newsService;
+        this.nearDuplicateIndex = nearDuplicateIndex;
+        this.validator = validator;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        // 超过队列容量的批次永远无法入队，上限不能大于容量
+        this.maxRequestSize = Math.min(maxRequestSize, capacity);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.permits = new Semaphore(capacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::drainLoop, "news-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    /**
+     * 校验并入队，返回每条新闻的票据；队列剩余容量不足以容纳整批时整批拒绝并返回空列表，
+     * 批次超过单次提交上限时抛出 413
+     */
+    public List<Long> offer(List<NewsIngestRequest> requests) {
+        if (requests.size() > maxRequestSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "batch exceeds " + maxRequestSize + " items");
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            validate(i, requests.get(i));
+        }
+        List<NewsService.NormalizedNews> normalized = requests.stream()
+                .map(newsService::normalize)
+                .toList();
+        if (!permits.tryAcquire(normalized.size())) {
+            rejected.addAndGet(normalized.size());
+            return List.of();
+        }
+        List<Long> tickets = new ArrayList<>(normalized.size());
+        synchronized (enqueueLock) {
+            for (NewsService.NormalizedNews news : normalized) {
+                long ticket = ticketSequence.incrementAndGet();
+                queue.add(new QueuedNews(ticket, news));
+                tickets.add(ticket);
+            }
+        }
+        accepted.addAndGet(normalized.size());
+        return tickets;
+    }
+
+    private void validate(int index, NewsIngestRequest request) {
+        if (request == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "item " + index + ": empty record");
+        }
+        Set<ConstraintViolation<NewsIngestRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .sorted(Comparator.comparing(v -> v.getPropertyPath().toString()))
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .collect(Collectors.joining("; "));
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "item " + index + ": " + message);
+        }
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public String ticketStatus(long ticket) {
+        if (ticket <= 0 || ticket > ticketSequence.get()) {
+            return "unknown";
+        }
+        if (isFailed(ticket)) {
+            return "failed";
+        }
+        return ticket <= processedThrough.get() ? "done" : "queued";
+    }
+
+    public String ticketError(long ticket) {
+        return isFailed(ticket) ? PERSIST_FAILED : null;
+    }
+
+    private boolean isFailed(long ticket) {
+        synchronized (failedTickets) {
+            return failedTickets.contains(ticket);
+        }
+    }
+
+    public NewsIngestQueueStats stats() {
+        long batchCount = batches.get();
+        long processed = written.get() + failed.get();
+        return NewsIngestQueueStats.builder()
+                .depth(capacity - permits.availablePermits())
+                .capacity(capacity)
+                .accepted(accepted.get())
+                .rejected(rejected.get())
+                .written(written.get())
+                .failed(failed.get())
+                .batches(batchCount)
+                .lastBatchSize(lastBatchSize)
+                .averageBatchSize(batchCount == 0 ? 0 : (double) processed / batchCount)
+                .drainRatePerSecond(drainRatePerSecond)
+                .processedThroughTicket(processedThrough.get())
+                .nearDuplicatesSuppressed(nearDuplicateIndex.suppressedCount())
+                .build();
+    }
+
+    private void drainLoop() {
+        List<QueuedNews> batch = new ArrayList<>(batchSize);
+        long sampleAt = System.nanoTime();
+        long sampleWritten = 0;
+        while (running || !queue.isEmpty()) {
+            try {
+                QueuedNews first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    writeBatch(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException ex) {
+                // stop() 中断等待后继续把剩余数据写完
+                Thread.interrupted();
+            }
+
+            long now = System.nanoTime();
+            if (now - sampleAt >= TimeUnit.SECONDS.toNanos(1)) {
+                long total = written.get();
+                drainRatePerSecond = (total - sampleWritten) * 1e9 / (now - sampleAt);
+                sampleAt = now;
+                sampleWritten = total;
+            }
+        }
+    }
+
+    private void writeBatch(List<QueuedNews> batch) {
+        try {
+            newsService.ingestNormalized(batch.stream().map(QueuedNews::news).toList());
+            written.addAndGet(batch.size());
+        } catch (RuntimeException ex) {
+            // 整批在同一事务内已回滚，逐条重试找出真正写不进去的记录
+            log.warn("Failed to write queued news batch of {} items, retrying one by one", batch.size(), ex);
+            batch.forEach(this::writeOne);
+        } finally {
+            processedThrough.set(batch.get(batch.size() - 1).ticket());
+            lastBatchSize = batch.size();
+            batches.incrementAndGet();
+            permits.release(batch.size());
+        }
+    }
+
+    private void writeOne(QueuedNews item) {
+        try {
+            newsService.ingestNormalized(List.of(item.news()));
+            written.incrementAndGet();
+        } catch (RuntimeException ex) {
+            log.error("Failed to write queued news ticket {}", item.ticket(), ex);
+            synchronized (failedTickets) {
+                failedTickets.add(item.ticket());
+            }
+            failed.incrementAndGet();
+        }
+    }
+
+    private record QueuedNews(long ticket, NewsService.NormalizedNews news) {
+    }
+}
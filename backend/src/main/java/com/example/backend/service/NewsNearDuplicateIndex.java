@@ -0,0 +1,150 @@
+package com.example.backend.service;
+
+import com.example.backend.model.News;
+import com.example.backend.repository.NewsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 近似重复新闻检测：对标题和摘要的分词特征计算 MinHash 签名，在内存 LSH 索引中查找同币种、
+ * 发布时间相差不超过时间窗口的近似新闻。只保留时间窗口内的新闻，窗口外的历史回灌不做近似去重
+ */
+@Component
+@Slf4j
+public class NewsNearDuplicateIndex {
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final NewsRepository newsRepository;
+    private final boolean enabled;
+    private final double minSimilarity;
+    private final Duration window;
+    private final MinHashIndex<Indexed> index = new MinHashIndex<>();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public NewsNearDuplicateIndex(NewsRepository newsRepository,
+                                  @Value("${news.dedup.near-duplicate.enabled:true}") boolean enabled,
+                                  @Value("${news.dedup.near-duplicate.min-similarity:0.6}") double minSimilarity,
+                                  @Value("${news.dedup.near-duplicate.window-hours:72}") long windowHours) {
+        this.newsRepository = newsRepository;
+        this.enabled = enabled;
+        this.minSimilarity = minSimilarity;
+        this.window = Duration.ofHours(windowHours);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getMinSimilarity() {
+        return minSimilarity;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    /**
+     * 启动以来被判定为近似重复而归并的条数（含与同批次新闻重复的），通过 GET /api/news/ingest/queue 暴露
+     */
+    public long suppressedCount() {
+        return suppressed.get();
+    }
+
+    /**
+     * 记录一条与同批次新闻近似重复而被归并的新闻
+     */
+    void countSuppressed() {
+        suppressed.incrementAndGet();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::rebuild, "news-near-duplicate-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void rebuild() {
+        LocalDateTime since = LocalDateTime.now().minus(window);
+        long lastId = 0;
+        int indexed = 0;
+        List<News> page;
+        do {
+            page = newsRepository.findByPublishedAtGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+                    since, lastId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+            for (News news : page) {
+                add(signature(news.getTitle(), news.getSummary()), news.getId(), news.getCoin(), news.getPublishedAt());
+                lastId = news.getId();
+            }
+            indexed += page.size();
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        log.info("News near-duplicate index rebuilt with {} documents", indexed);
+    }
+
+    static int[] signature(String title, String summary) {
+        return MinHash.signature(NewsTokenizer.featureTokens(title), NewsTokenizer.featureTokens(summary));
+    }
+
+    /**
+     * 返回已入库的近似重复新闻ID，没有则返回 null
+     */
+    public Long findNearDuplicate(int[] signature, String coin, LocalDateTime publishedAt) {
+        if (!enabled || signature == null || publishedAt == null) {
+            return null;
+        }
+        long epoch = publishedAt.toEpochSecond(ZoneOffset.UTC);
+        long windowSeconds = window.toSeconds();
+        Indexed match;
+        synchronized (index) {
+            match = index.findSimilar(signature, minSimilarity, candidate ->
+                    candidate.coin().equals(coin) && Math.abs(candidate.publishedAt() - epoch) <= windowSeconds);
+        }
+        if (match == null) {
+            return null;
+        }
+        suppressed.incrementAndGet();
+        return match.newsId();
+    }
+
+    public void add(int[] signature, Long newsId, String coin, LocalDateTime publishedAt) {
+        if (!enabled || signature == null || newsId == null || coin == null || publishedAt == null
+                || publishedAt.isBefore(LocalDateTime.now().minus(window))) {
+            return;
+        }
+        Indexed value = new Indexed(newsId, coin, publishedAt.toEpochSecond(ZoneOffset.UTC));
+        synchronized (index) {
+            index.add(signature, value);
+        }
+    }
+
+    /**
+     * 定期清理时间窗口之外的条目
+     */
+    @Scheduled(fixedDelayString = "${news.dedup.near-duplicate.evict-interval-ms:3600000}")
+    public void evictExpired() {
+        if (!enabled) {
+            return;
+        }
+        long cutoff = LocalDateTime.now().minus(window).toEpochSecond(ZoneOffset.UTC);
+        synchronized (index) {
+            index.removeIf(entry -> entry.publishedAt() < cutoff);
+        }
+    }
+
+    private record Indexed(long newsId, String coin, long publishedAt) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.NewsDto;
+import com.example.backend.dto.NewsQueryCacheStats;
+import com.example.backend.dto.PagedResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 新闻列表查询结果的有界 LRU 缓存。
+ * 每条缓存记录写入时的数据版本，导入与已读状态变更时版本号递增，版本不一致的记录视为失效，无需依赖 TTL；
+ * 查询开始前取版本号，查询期间版本发生变化的结果不写入缓存，避免把旧数据挂到新版本上
+ */
+@Component
+public class NewsQueryCache {
+    private final int capacity;
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Key, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public NewsQueryCache(@Value("${news.query-cache.capacity:256}") int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > NewsQueryCache.this.capacity) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 数据发生变化时调用，之前缓存的全部结果随之失效
+     */
+    public void bumpVersion() {
+        version.incrementAndGet();
+    }
+
+    public long currentVersion() {
+        return version.get();
+    }
+
+    public PagedResponse<NewsDto> get(Key key) {
+        long current = version.get();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.version() == current) {
+                hits.incrementAndGet();
+                return entry.response();
+            }
+            if (entry != null) {
+                entries.remove(key);
+                invalidations.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 写入查询结果，queriedAtVersion 为查询开始前读到的版本号
+     */
+    public void put(Key key, long queriedAtVersion, PagedResponse<NewsDto> response) {
+        if (queriedAtVersion != version.get()) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new Entry(queriedAtVersion, response));
+        }
+    }
+
+    public NewsQueryCacheStats stats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return NewsQueryCacheStats.builder()
+                .size(size)
+                .capacity(capacity)
+                .version(version.get())
+                .hits(hitCount)
+                .misses(missCount)
+                .hitRatio(lookups == 0 ? 0 : (double) hitCount / lookups)
+                .evictions(evictions.get())
+                .invalidations(invalidations.get())
+                .build();
+    }
+
+    public record Key(String coin, String sentiment, int page, int size, String fields, boolean history) {
+    }
+
+    private record Entry(long version, PagedResponse<NewsDto> response) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.NewsRepository;
+import com.example.backend.repository.NewsRepository.UnreadCount;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单条已读标记的写后缓冲：重复点击的同一ID只保留一次，定时合并成一条 UPDATE ... WHERE id IN (...) 落库
+ */
+@Component
+@Slf4j
+public class NewsReadBuffer {
+    static final int FLUSH_CHUNK_SIZE = 1000;
+
+    private final NewsRepository newsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final NewsUnreadCounter unreadCounter;
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    // 正在落库的ID，落库完成前仍视为已读
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    public NewsReadBuffer(NewsRepository newsRepository, TransactionTemplate transactionTemplate,
+                          NewsUnreadCounter unreadCounter) {
+        this.newsRepository = newsRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.unreadCounter = unreadCounter;
+    }
+
+    public void add(Long id) {
+        pending.add(id);
+    }
+
+    /**
+     * 已缓冲但尚未落库的ID在查询结果中同样视为已读
+     */
+    public boolean isPending(Long id) {
+        return pending.contains(id) || inFlight.contains(id);
+    }
+
+    @Scheduled(fixedDelayString = "${news.read-buffer.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        Iterator<Long> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            Long id = iterator.next();
+            inFlight.add(id);
+            iterator.remove();
+            ids.add(id);
+        }
+        try {
+            long updated = 0;
+            for (int from = 0; from < ids.size(); from += FLUSH_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + FLUSH_CHUNK_SIZE, ids.size()));
+                // 同一事务内先统计将被标记的未读分布，提交后再扣减未读计数
+                List<UnreadCount> counts = transactionTemplate.execute(status -> {
+                    List<UnreadCount> unread = newsRepository.countUnreadGroupedByIds(chunk);
+                    newsRepository.markReadByIds(chunk);
+                    return unread;
+                });
+                if (counts != null) {
+                    unreadCounter.decrement(counts);
+                    updated += counts.stream().mapToLong(UnreadCount::getTotal).sum();
+                }
+            }
+            log.debug("Flushed {} buffered read marks, {} rows updated", ids.size(), updated);
+        } catch (RuntimeException ex) {
+            log.error("Failed to flush {} buffered read marks, will retry", ids.size(), ex);
+            pending.addAll(ids);
+        } finally {
+            ids.forEach(inFlight::remove);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,458 @@
+package com.example.backend.service;
+
+import com.example.backend.model.News;
+import com.example.backend.model.SentimentType;
+import com.example.backend.model.User;
+import com.example.backend.model.UserNewsRead;
+import com.example.backend.repository.NewsRepository;
+import com.example.backend.repository.NewsRepository.NewsIdRow;
+import com.example.backend.repository.UserNewsReadRepository;
+import com.example.backend.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * 按用户维护的新闻已读状态。
+ * 每个用户的已读新闻ID存为一个压缩位图，持久化为 user_news_read 表中的一个 BLOB，使用时加载到内存并定时回写；
+ * 另按 币种 + 情绪 维护当前 news 表中全部新闻ID的位图，用户未读数 = |在库新闻| - |在库新闻 ∩ 已读|，全部是位图运算
+ */
+@Service
+@Slf4j
+public class NewsReadStateService {
+    private static final int REBUILD_PAGE_SIZE = 5000;
+    private static final int VALIDATE_CHUNK_SIZE = 1000;
+
+    private final UserRepository userRepository;
+    private final UserNewsReadRepository userNewsReadRepository;
+    private final NewsRepository newsRepository;
+    private final Duration idleEviction;
+
+    private final ReentrantReadWriteLock liveLock = new ReentrantReadWriteLock();
+    private final Map<LiveKey, NewsIdBitmap> live = new HashMap<>();
+    private final Map<String, Long> userIds = new ConcurrentHashMap<>();
+    private final Map<Long, UserReadState> states = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public NewsReadStateService(UserRepository userRepository,
+                                UserNewsReadRepository userNewsReadRepository,
+                                NewsRepository newsRepository,
+                                @Value("${news.read-state.idle-eviction-minutes:30}") long idleEvictionMinutes) {
+        this.userRepository = userRepository;
+        this.userNewsReadRepository = userNewsReadRepository;
+        this.newsRepository = newsRepository;
+        this.idleEviction = Duration.ofMinutes(idleEvictionMinutes);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread thread = new Thread(this::rebuild, "news-read-state-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 按ID顺序扫描 news 表的窄列重建在库新闻位图；位图写入是幂等的，重建期间新写入的新闻不会重复计数
+     */
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        long lastId = 0;
+        int loaded = 0;
+        List<NewsIdRow> page;
+        do {
+            page = newsRepository.findIdRowsAfter(lastId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+            liveLock.writeLock().lock();
+            try {
+                for (NewsIdRow row : page) {
+                    liveBitmap(row.getCoin(), row.getSentiment()).add(row.getId());
+                }
+            } finally {
+                liveLock.writeLock().unlock();
+            }
+            loaded += page.size();
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        ready = true;
+        log.info("News read-state bitmaps rebuilt: {} news in {} ms", loaded, System.currentTimeMillis() - started);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 由请求头中的用户名解析用户ID；未携带用户名时返回 null，表示沿用全局已读标记
+     */
+    public Long resolveUser(String username) {
+        if (!StringUtils.hasText(username)) {
+            return null;
+        }
+        Long cached = userIds.get(username);
+        if (cached != null) {
+            return cached;
+        }
+        User user = userRepository.findByUsername(username);
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unknown user: " + username);
+        }
+        userIds.put(username, user.getId());
+        return user.getId();
+    }
+
+    public void onNewsCreated(Collection<News> newsList) {
+        liveLock.writeLock().lock();
+        try {
+            newsList.forEach(news -> liveBitmap(news.getCoin(), news.getSentiment()).add(news.getId()));
+        } finally {
+            liveLock.writeLock().unlock();
+        }
+    }
+
+    public void onNewsMoved(News before, News after) {
+        liveLock.writeLock().lock();
+        try {
+            liveBitmap(before.getCoin(), before.getSentiment()).remove(after.getId());
+            liveBitmap(after.getCoin(), after.getSentiment()).add(after.getId());
+        } finally {
+            liveLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 归档后的新闻不再计入未读；用户位图中残留的ID与在库位图求交时自然被忽略
+     */
+    public void onNewsArchived(Collection<Long> ids) {
+        liveLock.writeLock().lock();
+        try {
+            for (NewsIdBitmap bitmap : live.values()) {
+                ids.forEach(bitmap::remove);
+            }
+        } finally {
+            liveLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 返回用户已读判断函数，批量判断时只需加载一次用户状态
+     */
+    public LongPredicate readFilter(Long userId) {
+        UserReadState state = state(userId);
+        return state::contains;
+    }
+
+    /**
+     * 返回新标记为已读的条数；不在库的ID被忽略，不写入位图
+     */
+    public long markRead(Long userId, Collection<Long> newsIds) {
+        return state(userId).addAll(existingIds(newsIds));
+    }
+
+    /**
+     * 把符合 币种/情绪 条件的全部在库新闻并入用户已读位图，coin/sentiment 为空表示不过滤
+     */
+    public long markAllRead(Long userId, String coin, SentimentType sentiment) {
+        UserReadState state = state(userId);
+        liveLock.readLock().lock();
+        try {
+            long added = 0;
+            for (Map.Entry<LiveKey, NewsIdBitmap> entry : live.entrySet()) {
+                if (entry.getKey().matches(coin, sentiment)) {
+                    added += state.addAll(entry.getValue());
+                }
+            }
+            return added;
+        } finally {
+            liveLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 用户在 币种/情绪 条件下的未读数，coin/sentiment 为空表示不过滤
+     */
+    public long unreadCount(Long userId, String coin, SentimentType sentiment) {
+        UserReadState state = state(userId);
+        liveLock.readLock().lock();
+        try {
+            long unread = 0;
+            for (Map.Entry<LiveKey, NewsIdBitmap> entry : live.entrySet()) {
+                if (entry.getKey().matches(coin, sentiment)) {
+                    unread += entry.getValue().cardinality() - state.andCardinality(entry.getValue());
+                }
+            }
+            return unread;
+        } finally {
+            liveLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 在库新闻中符合 币种/情绪 条件的条数
+     */
+    public long liveCount(String coin, SentimentType sentiment) {
+        liveLock.readLock().lock();
+        try {
+            long total = 0;
+            for (Map.Entry<LiveKey, NewsIdBitmap> entry : live.entrySet()) {
+                if (entry.getKey().matches(coin, sentiment)) {
+                    total += entry.getValue().cardinality();
+                }
+            }
+            return total;
+        } finally {
+            liveLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 用户在 币种/情绪 条件下的未读新闻ID，逐个 在库新闻位图 \ 已读位图 求差集，不保证顺序
+     */
+    public List<Long> unreadIds(Long userId, String coin, SentimentType sentiment) {
+        UserReadState state = state(userId);
+        List<Long> ids = new ArrayList<>();
+        liveLock.readLock().lock();
+        try {
+            for (Map.Entry<LiveKey, NewsIdBitmap> entry : live.entrySet()) {
+                if (entry.getKey().matches(coin, sentiment)) {
+                    state.andNotOf(entry.getValue()).forEach(ids::add);
+                }
+            }
+        } finally {
+            liveLock.readLock().unlock();
+        }
+        return ids;
+    }
+
+    /**
+     * 币种 -> 情绪 -> 未读数，格式与 NewsUnreadCounter.breakdown 一致
+     */
+    public Map<String, Map<String, Long>> unreadBreakdown(Long userId) {
+        UserReadState state = state(userId);
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        liveLock.readLock().lock();
+        try {
+            live.forEach((key, bitmap) -> {
+                long unread = bitmap.cardinality() - state.andCardinality(bitmap);
+                if (unread == 0) {
+                    return;
+                }
+                String coin = key.coin() != null ? key.coin() : "unknown";
+                String sentiment = key.sentiment() != null ? key.sentiment().name().toLowerCase(Locale.ROOT) : "unknown";
+                result.computeIfAbsent(coin, c -> new TreeMap<>()).merge(sentiment, unread, Long::sum);
+            });
+        } finally {
+            liveLock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * 回写有变化的用户位图，并释放长时间未访问且已落库的用户状态
+     */
+    @Scheduled(fixedDelayString = "${news.read-state.flush-interval-ms:5000}")
+    public void flush() {
+        List<UserNewsRead> dirty = new ArrayList<>();
+        List<Long> flushedVersions = new ArrayList<>();
+        List<UserReadState> flushedStates = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, UserReadState> entry : states.entrySet()) {
+            UserReadState state = entry.getValue();
+            synchronized (state) {
+                if (state.version != state.flushedVersion) {
+                    dirty.add(UserNewsRead.builder()
+                            .userId(entry.getKey())
+                            .readBitmap(state.bitmap.serialize())
+                            .updatedAt(LocalDateTime.now())
+                            .build());
+                    flushedVersions.add(state.version);
+                    flushedStates.add(state);
+                } else if (now - state.lastAccess > idleEviction.toMillis()) {
+                    state.evicted = true;
+                    states.remove(entry.getKey(), state);
+                }
+            }
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+        try {
+            userNewsReadRepository.saveAll(dirty);
+            for (int i = 0; i < flushedStates.size(); i++) {
+                UserReadState state = flushedStates.get(i);
+                synchronized (state) {
+                    state.flushedVersion = flushedVersions.get(i);
+                }
+            }
+            log.debug("Flushed read-state bitmaps of {} users", dirty.size());
+        } catch (RuntimeException ex) {
+            log.error("Failed to flush read-state bitmaps of {} users, will retry", dirty.size(), ex);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * 新闻是否在当前 news 表中；在库位图就绪时只查位图
+     */
+    public boolean exists(long newsId) {
+        return !existingIds(List.of(newsId)).isEmpty();
+    }
+
+    /**
+     * 只保留当前 news 表中存在的正数ID：不存在或任意大的ID会在位图中凭空新增桶，撑大持久化的 BLOB。
+     * 在库位图就绪时直接查位图，重建期间查库
+     */
+    private List<Long> existingIds(Collection<Long> newsIds) {
+        List<Long> candidates = newsIds.stream()
+                .filter(id -> id != null && id > 0)
+                .distinct()
+                .toList();
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        if (ready) {
+            liveLock.readLock().lock();
+            try {
+                return candidates.stream()
+                        .filter(id -> live.values().stream().anyMatch(bitmap -> bitmap.contains(id)))
+                        .toList();
+            } finally {
+                liveLock.readLock().unlock();
+            }
+        }
+        List<Long> existing = new ArrayList<>();
+        for (int from = 0; from < candidates.size(); from += VALIDATE_CHUNK_SIZE) {
+            existing.addAll(newsRepository.findExistingIds(
+                    candidates.subList(from, Math.min(from + VALIDATE_CHUNK_SIZE, candidates.size()))));
+        }
+        return existing;
+    }
+
+    private UserReadState state(Long userId) {
+        while (true) {
+            UserReadState state = states.get(userId);
+            if (state == null) {
+                UserReadState loaded = load(userId);
+                state = states.putIfAbsent(userId, loaded);
+                if (state == null) {
+                    state = loaded;
+                }
+            }
+            // 与回写线程的空闲释放互斥：已被释放的状态不再使用，重新加载
+            synchronized (state) {
+                if (!state.evicted) {
+                    state.lastAccess = System.currentTimeMillis();
+                    return state;
+                }
+            }
+        }
+    }
+
+    /**
+     * 从库中加载用户位图；BLOB 无法解析时记录错误并从空位图重新开始，标记为待回写以覆盖损坏的数据，
+     * 不让一行坏数据使该用户的所有请求持续失败
+     */
+    private UserReadState load(Long userId) {
+        UserNewsRead row = userNewsReadRepository.findById(userId).orElse(null);
+        if (row == null) {
+            return new UserReadState(new NewsIdBitmap());
+        }
+        try {
+            return new UserReadState(NewsIdBitmap.deserialize(row.getReadBitmap()));
+        } catch (RuntimeException ex) {
+            log.error("Corrupt read-state bitmap of user {}, resetting to empty", userId, ex);
+            UserReadState reset = new UserReadState(new NewsIdBitmap());
+            reset.version++;
+            return reset;
+        }
+    }
+
+    private NewsIdBitmap liveBitmap(String coin, SentimentType sentiment) {
+        return live.computeIfAbsent(new LiveKey(coin, sentiment), key -> new NewsIdBitmap());
+    }
+
+    private record LiveKey(String coin, SentimentType sentiment) {
+        boolean matches(String coinFilter, SentimentType sentimentFilter) {
+            return (coinFilter == null || coinFilter.equals(coin))
+                    && (sentimentFilter == null || sentimentFilter == sentiment);
+        }
+    }
+
+    /**
+     * 单个用户的已读位图；version 每次修改递增，与 flushedVersion 不同即需要回写
+     */
+    private static final class UserReadState {
+        private final NewsIdBitmap bitmap;
+        private long version;
+        private long flushedVersion;
+        private long lastAccess;
+        private boolean evicted;
+
+        UserReadState(NewsIdBitmap bitmap) {
+            this.bitmap = bitmap;
+        }
+
+        synchronized boolean contains(long newsId) {
+            return bitmap.contains(newsId);
+        }
+
+        synchronized long addAll(Collection<Long> newsIds) {
+            long added = 0;
+            for (Long newsId : newsIds) {
+                if (bitmap.add(newsId)) {
+                    added++;
+                }
+            }
+            if (added > 0) {
+                version++;
+            }
+            return added;
+        }
+
+        synchronized long addAll(NewsIdBitmap other) {
+            long[] added = new long[1];
+            other.forEach(newsId -> {
+                if (bitmap.add(newsId)) {
+                    added[0]++;
+                }
+            });
+            if (added[0] > 0) {
+                version++;
+            }
+            return added[0];
+        }
+
+        synchronized long andCardinality(NewsIdBitmap other) {
+            return bitmap.andCardinality(other);
+        }
+
+        synchronized NewsIdBitmap andNotOf(NewsIdBitmap other) {
+            return other.andNot(bitmap);
+        }
+    }
+}
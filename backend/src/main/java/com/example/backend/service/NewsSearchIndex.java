@@ -0,0 +1,431 @@
+package com.example.backend.service;
+
+import com.example.backend.model.News;
+import com.example.backend.model.SentimentType;
+import com.example.backend.repository.NewsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 新闻标题与摘要的内存倒排索引。
+ * 文档按加入顺序编号，倒排表天然有序，查询时从最短倒排表开始求交集后按 BM25 打分；
+ * 新闻被更新时旧文档号标记删除并追加新文档，删除标记累积到一定比例后压缩掉旧文档，使倒排表长度（文档频率）
+ * 与在库文档一致。启动后从数据库全量重建，失败时按指数退避重试直到成功，之后由 NewsService 的写入路径增量维护；
+ * 重建期间增量写入的新闻记下写入序号，重建读到的页若早于该序号则跳过这些新闻，避免旧快照覆盖新内容
+ */
+@Component
+@Slf4j
+public class NewsSearchIndex {
+    private static final int REBUILD_PAGE_SIZE = 1000;
+    private static final int TITLE_WEIGHT = 2;
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+    // 只对相关度前 N 条分页，更深的页由调用方拒绝
+    public static final int MAX_RESULT_WINDOW = 10_000;
+    // 删除标记超过该数量且超过在库文档的四分之一时压缩
+    private static final int COMPACT_MIN_DELETED = 1024;
+    private static final long REBUILD_RETRY_INITIAL_MS = 1000;
+    private static final long REBUILD_RETRY_MAX_MS = 60_000;
+
+    private final NewsRepository newsRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> docByNewsId = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private long[] newsIds = new long[1024];
+    private byte[] coins = new byte[1024];
+    private byte[] sentiments = new byte[1024];
+    private long[] publishedAt = new long[1024];
+    private int[] docLengths = new int[1024];
+    private int docCount;
+    private int liveDocs;
+    private long totalLength;
+    private final Map<String, Byte> coinCodes = new HashMap<>();
+    private volatile boolean ready;
+    // 重建完成前增量写入（含删除）的新闻ID -> 写入序号；由写锁保护，重建完成后清空
+    private final Map<Long, Long> writesDuringRebuild = new HashMap<>();
+    private long writeSequence;
+
+    public NewsSearchIndex(NewsRepository newsRepository) {
+        this.newsRepository = newsRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread thread = new Thread(this::rebuildUntilReady, "news-search-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void rebuildUntilReady() {
+        long delay = REBUILD_RETRY_INITIAL_MS;
+        while (!ready) {
+            try {
+                rebuild();
+            } catch (RuntimeException ex) {
+                log.error("Failed to rebuild news search index, retrying in {} ms", delay, ex);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                delay = Math.min(delay * 2, REBUILD_RETRY_MAX_MS);
+            }
+        }
+    }
+
+    /**
+     * 按ID顺序分页扫描 news 表重建索引；重复重建是幂等的，已在索引中的新闻会被替换
+     */
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        long lastId = 0;
+        int indexed = 0;
+        List<News> page;
+        do {
+            long snapshot = currentWriteSequence();
+            page = newsRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+            indexSnapshot(page, snapshot);
+            indexed += page.size();
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        lock.writeLock().lock();
+        try {
+            ready = true;
+            writesDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("News search index rebuilt: {} documents in {} ms", indexed, System.currentTimeMillis() - started);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Collection<News> newsList) {
+        if (newsList.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            newsList.forEach(news -> {
+                recordWrite(news.getId());
+                indexOne(news);
+            });
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 写入重建读到的一页；读取这页之后（序号大于 snapshot）被增量写入或删除的新闻以增量结果为准
+     */
+    private void indexSnapshot(List<News> page, long snapshot) {
+        if (page.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (News news : page) {
+                Long written = writesDuringRebuild.get(news.getId());
+                if (written == null || written <= snapshot) {
+                    indexOne(news);
+                }
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long currentWriteSequence() {
+        lock.readLock().lock();
+        try {
+            return writeSequence;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 重建完成前记录增量写入的序号；调用方持有写锁
+     */
+    private void recordWrite(Long newsId) {
+        if (!ready && newsId != null) {
+            writesDuringRebuild.put(newsId, ++writeSequence);
+        }
+    }
+
+    /**
+     * 新闻被归档出 news 表后标记删除，倒排表中的旧条目在查询时跳过
+     */
+    public void remove(Collection<Long> newsIdsToRemove) {
+        if (newsIdsToRemove.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Long newsId : newsIdsToRemove) {
+                recordWrite(newsId);
+                Integer doc = docByNewsId.remove(newsId);
+                if (doc != null && !deleted.get(doc)) {
+                    deleted.set(doc);
+                    liveDocs--;
+                    totalLength -= docLengths[doc];
+                }
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 检索并返回按相关度排序的一页新闻ID，coin/sentiment 为空表示不过滤
+     */
+    public SearchResult search(String query, String coin, SentimentType sentiment, int page, int size) {
+        List<String> terms = NewsTokenizer.queryTokens(query).stream().distinct().toList();
+        if (terms.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[terms.size()];
+            for (int i = 0; i < terms.size(); i++) {
+                lists[i] = postings.get(terms.get(i));
+                if (lists[i] == null) {
+                    return new SearchResult(List.of(), 0);
+                }
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+            Byte coinCode = coin == null ? null : coinCodes.get(coin);
+            if (coin != null && coinCode == null) {
+                return new SearchResult(List.of(), 0);
+            }
+            byte sentimentCode = sentiment == null ? -1 : (byte) sentiment.ordinal();
+            double avgLength = liveDocs == 0 ? 1 : (double) totalLength / liveDocs;
+            double[] idf = new double[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                idf[i] = Math.log(1 + (liveDocs - lists[i].size + 0.5) / (lists[i].size + 0.5));
+            }
+
+            int limit = (int) Math.max(1, Math.min((long) (page + 1) * size, MAX_RESULT_WINDOW));
+            PriorityQueue<ScoredDoc> top = new PriorityQueue<>(limit + 1);
+            int[] cursors = new int[lists.length];
+            int hits = 0;
+            Postings lead = lists[0];
+            // 跳跃式求交：任一倒排表超过候选文档时，用它的文档号把最短表向前推进
+            candidates:
+            while (cursors[0] < lead.size) {
+                int doc = lead.docs[cursors[0]];
+                if (deleted.get(doc)
+                        || (coinCode != null && coins[doc] != coinCode)
+                        || (sentimentCode >= 0 && sentiments[doc] != sentimentCode)) {
+                    cursors[0]++;
+                    continue;
+                }
+                for (int t = 1; t < lists.length; t++) {
+                    Postings list = lists[t];
+                    int pos = advance(list, cursors[t], doc);
+                    cursors[t] = pos;
+                    if (pos >= list.size) {
+                        break candidates;
+                    }
+                    if (list.docs[pos] != doc) {
+                        cursors[0] = advance(lead, cursors[0], list.docs[pos]);
+                        continue candidates;
+                    }
+                }
+
+                double score = 0;
+                for (int t = 0; t < lists.length; t++) {
+                    score += idf[t] * bm25(lists[t].freqs[cursors[t]], docLengths[doc], avgLength);
+                }
+                hits++;
+                if (top.size() < limit) {
+                    top.add(new ScoredDoc(doc, score, publishedAt[doc]));
+                } else {
+                    ScoredDoc weakest = top.peek();
+                    if (score > weakest.score() || (score == weakest.score() && publishedAt[doc] > weakest.publishedAt())) {
+                        top.poll();
+                        top.add(new ScoredDoc(doc, score, publishedAt[doc]));
+                    }
+                }
+                cursors[0]++;
+            }
+
+            List<ScoredDoc> ranked = new ArrayList<>(top);
+            ranked.sort((a, b) -> b.compareTo(a));
+            List<Long> ids = new ArrayList<>(size);
+            for (long i = (long) page * size; i < ranked.size() && ids.size() < size; i++) {
+                ids.add(newsIds[ranked.get((int) i).doc()]);
+            }
+            return new SearchResult(ids, hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void indexOne(News news) {
+        if (news.getId() == null) {
+            return;
+        }
+        Integer previous = docByNewsId.get(news.getId());
+        if (previous != null && !deleted.get(previous)) {
+            deleted.set(previous);
+            liveDocs--;
+            totalLength -= docLengths[previous];
+        }
+
+        Map<String, Integer> termFreqs = new HashMap<>();
+        List<String> titleTokens = NewsTokenizer.indexTokens(news.getTitle());
+        titleTokens.forEach(token -> termFreqs.merge(token, TITLE_WEIGHT, Integer::sum));
+        List<String> summaryTokens = NewsTokenizer.indexTokens(news.getSummary());
+        summaryTokens.forEach(token -> termFreqs.merge(token, 1, Integer::sum));
+
+        int doc = docCount++;
+        ensureCapacity(docCount);
+        newsIds[doc] = news.getId();
+        coins[doc] = news.getCoin() == null ? -1 : coinCodes.computeIfAbsent(news.getCoin(), k -> (byte) coinCodes.size()).byteValue();
+        sentiments[doc] = news.getSentiment() == null ? -1 : (byte) news.getSentiment().ordinal();
+        publishedAt[doc] = news.getPublishedAt() == null ? 0 : news.getPublishedAt().toEpochSecond(ZoneOffset.UTC);
+        docLengths[doc] = titleTokens.size() * TITLE_WEIGHT + summaryTokens.size();
+        docByNewsId.put(news.getId(), doc);
+        liveDocs++;
+        totalLength += docLengths[doc];
+
+        termFreqs.forEach((term, freq) -> postings.computeIfAbsent(term, k -> new Postings()).add(doc, freq));
+    }
+
+    /**
+     * 删除标记过多时按原顺序重新编号在库文档，并从倒排表中去掉已删除文档；调用方持有写锁
+     */
+    private void compactIfNeeded() {
+        int deletedDocs = docCount - liveDocs;
+        if (deletedDocs < COMPACT_MIN_DELETED || deletedDocs * 4L < liveDocs) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        int[] remap = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (deleted.get(doc)) {
+                remap[doc] = -1;
+                continue;
+            }
+            remap[doc] = next;
+            newsIds[next] = newsIds[doc];
+            coins[next] = coins[doc];
+            sentiments[next] = sentiments[doc];
+            publishedAt[next] = publishedAt[doc];
+            docLengths[next] = docLengths[doc];
+            next++;
+        }
+        docCount = next;
+        deleted.clear();
+        docByNewsId.replaceAll((newsId, doc) -> remap[doc]);
+        // 新编号保持原有顺序，压缩后的倒排表仍然有序
+        postings.values().removeIf(list -> {
+            int size = 0;
+            for (int i = 0; i < list.size; i++) {
+                int doc = remap[list.docs[i]];
+                if (doc >= 0) {
+                    list.docs[size] = doc;
+                    list.freqs[size] = list.freqs[i];
+                    size++;
+                }
+            }
+            list.size = size;
+            return size == 0;
+        });
+        log.info("News search index compacted: {} deleted documents dropped in {} ms",
+                deletedDocs, System.currentTimeMillis() - started);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= newsIds.length) {
+            return;
+        }
+        int capacity = Math.max(required, newsIds.length * 2);
+        newsIds = Arrays.copyOf(newsIds, capacity);
+        coins = Arrays.copyOf(coins, capacity);
+        sentiments = Arrays.copyOf(sentiments, capacity);
+        publishedAt = Arrays.copyOf(publishedAt, capacity);
+        docLengths = Arrays.copyOf(docLengths, capacity);
+    }
+
+    private static double bm25(int tf, int docLength, double avgLength) {
+        return tf * (BM25_K1 + 1) / (tf + BM25_K1 * (1 - BM25_B + BM25_B * docLength / avgLength));
+    }
+
+    /**
+     * 在有序倒排表中从 from 开始查找第一个 >= doc 的位置（指数探测 + 二分）
+     */
+    private static int advance(Postings list, int from, int doc) {
+        if (from >= list.size || list.docs[from] >= doc) {
+            return from;
+        }
+        int step = 1;
+        int low = from;
+        int high = from + step;
+        while (high < list.size && list.docs[high] < doc) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        high = Math.min(high + 1, list.size);
+        int found = Arrays.binarySearch(list.docs, low, high, doc);
+        return found >= 0 ? found : -found - 1;
+    }
+
+    public record SearchResult(List<Long> newsIds, long totalHits) {
+    }
+
+    private record ScoredDoc(int doc, double score, long publishedAt) implements Comparable<ScoredDoc> {
+        @Override
+        public int compareTo(ScoredDoc other) {
+            int byScore = Double.compare(score, other.score);
+            if (byScore != 0) {
+                return byScore;
+            }
+            return Long.compare(publishedAt, other.publishedAt);
+        }
+    }
+
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+}
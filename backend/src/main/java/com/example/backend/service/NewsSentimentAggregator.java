@@ -0,0 +1,184 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.SentimentWindowDto;
+import com.example.backend.model.News;
+import com.example.backend.model.SentimentType;
+import com.example.backend.repository.NewsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按币种滚动统计 1h/24h/7d 窗口内的情绪分布。
+ * 每个币种维护两组环形时间桶：60 个分钟桶覆盖 1h 窗口，168 个小时桶覆盖 24h 与 7d 窗口；
+ * 桶按新闻发布时间归档，槽位被更新的时间片复用时先清零，读取只需遍历桶，与新闻条数无关
+ */
+@Component
+@Slf4j
+public class NewsSentimentAggregator {
+    private static final int MINUTE_BUCKETS = 60;
+    private static final int HOUR_BUCKETS = 7 * 24;
+    private static final int REBUILD_PAGE_SIZE = 1000;
+    private static final int SENTIMENTS = SentimentType.values().length;
+
+    private final NewsRepository newsRepository;
+    private final Map<String, CoinSeries> series = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public NewsSentimentAggregator(NewsRepository newsRepository) {
+        this.newsRepository = newsRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread thread = new Thread(this::rebuild, "news-sentiment-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 从数据库回放最近 7 天的新闻；只回放启动时已存在的最大ID之前的记录，之后写入的新闻由导入路径计入，避免重复计数
+     */
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        long maxId = newsRepository.findTopByOrderByIdDesc().map(News::getId).orElse(0L);
+        LocalDateTime since = LocalDateTime.now().minusDays(7);
+        long lastId = 0;
+        int replayed = 0;
+        boolean done = false;
+        while (!done) {
+            List<News> page = newsRepository.findByPublishedAtGreaterThanEqualAndIdGreaterThanOrderByIdAsc(since,
+                    lastId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+            done = page.size() < REBUILD_PAGE_SIZE;
+            for (News news : page) {
+                if (news.getId() > maxId) {
+                    done = true;
+                    break;
+                }
+                add(news);
+                replayed++;
+                lastId = news.getId();
+            }
+        }
+        ready = true;
+        log.info("News sentiment windows rebuilt: {} news in {} ms", replayed, System.currentTimeMillis() - started);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void add(News news) {
+        update(news.getCoin(), news.getSentiment(), news.getPublishedAt(), 1);
+    }
+
+    /**
+     * 新闻的币种或情绪被修改时，先撤销旧维度上的计数
+     */
+    public void remove(String coin, SentimentType sentiment, LocalDateTime publishedAt) {
+        update(coin, sentiment, publishedAt, -1);
+    }
+
+    /**
+     * 返回 币种 -> 窗口(1h/24h/7d) -> 统计；coin 为空返回全部币种
+     */
+    public Map<String, Map<String, SentimentWindowDto>> snapshot(String coin) {
+        long nowMinute = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC) / 60;
+        Map<String, Map<String, SentimentWindowDto>> result = new TreeMap<>();
+        if (coin != null) {
+            CoinSeries coinSeries = series.get(coin);
+            result.put(coin, coinSeries != null ? coinSeries.windows(nowMinute) : new CoinSeries().windows(nowMinute));
+        } else {
+            series.forEach((key, value) -> result.put(key, value.windows(nowMinute)));
+        }
+        return result;
+    }
+
+    private void update(String coin, SentimentType sentiment, LocalDateTime publishedAt, int delta) {
+        if (coin == null || sentiment == null || publishedAt == null) {
+            return;
+        }
+        long minute = publishedAt.toEpochSecond(ZoneOffset.UTC) / 60;
+        series.computeIfAbsent(coin, key -> new CoinSeries()).add(minute, sentiment.ordinal(), delta);
+    }
+
+    /**
+     * 单个币种的环形时间桶；每个槽位记录其当前承载的时间片编号，编号不符即视为过期
+     */
+    private static final class CoinSeries {
+        private final long[] minuteSlots = new long[MINUTE_BUCKETS];
+        private final int[][] minuteCounts = new int[MINUTE_BUCKETS][SENTIMENTS];
+        private final long[] hourSlots = new long[HOUR_BUCKETS];
+        private final int[][] hourCounts = new int[HOUR_BUCKETS][SENTIMENTS];
+
+        CoinSeries() {
+            Arrays.fill(minuteSlots, Long.MIN_VALUE);
+            Arrays.fill(hourSlots, Long.MIN_VALUE);
+        }
+
+        synchronized void add(long minute, int sentiment, int delta) {
+            bump(minuteSlots, minuteCounts, minute, sentiment, delta);
+            bump(hourSlots, hourCounts, Math.floorDiv(minute, 60), sentiment, delta);
+        }
+
+        synchronized Map<String, SentimentWindowDto> windows(long nowMinute) {
+            long nowHour = Math.floorDiv(nowMinute, 60);
+            Map<String, SentimentWindowDto> windows = new LinkedHashMap<>();
+            windows.put("1h", window("1h", sum(minuteSlots, minuteCounts, nowMinute, MINUTE_BUCKETS)));
+            windows.put("24h", window("24h", sum(hourSlots, hourCounts, nowHour, 24)));
+            windows.put("7d", window("7d", sum(hourSlots, hourCounts, nowHour, HOUR_BUCKETS)));
+            return windows;
+        }
+
+        private static void bump(long[] slots, int[][] counts, long slot, int sentiment, int delta) {
+            int index = (int) Math.floorMod(slot, (long) slots.length);
+            if (slots[index] != slot) {
+                if (slots[index] > slot) {
+                    // 槽位已被更新的时间片占用，说明该新闻已滑出窗口
+                    return;
+                }
+                slots[index] = slot;
+                Arrays.fill(counts[index], 0);
+            }
+            counts[index][sentiment] += delta;
+        }
+
+        private static long[] sum(long[] slots, int[][] counts, long now, int span) {
+            long[] totals = new long[SENTIMENTS];
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] > now - span && slots[i] <= now) {
+                    for (int s = 0; s < SENTIMENTS; s++) {
+                        totals[s] += counts[i][s];
+                    }
+                }
+            }
+            return totals;
+        }
+
+        private static SentimentWindowDto window(String name, long[] totals) {
+            long bullish = totals[SentimentType.BULLISH.ordinal()];
+            long bearish = totals[SentimentType.BEARISH.ordinal()];
+            long neutral = totals[SentimentType.NEUTRAL.ordinal()];
+            long total = bullish + bearish + neutral;
+            return SentimentWindowDto.builder()
+                    .window(name)
+                    .bullish(bullish)
+                    .bearish(bearish)
+                    .neutral(neutral)
+                    .total(total)
+                    .netScore(total == 0 ? 0 : (double) (bullish - bearish) / total)
+                    .build();
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.NewsBulkReadRequest;
 import com.example.backend.dto.NewsDto;
 import com.example.backend.dto.NewsIngestRequest;
+import com.example.backend.dto.NewsQueryCacheStats;
 import com.example.backend.dto.PagedResponse;
+import com.example.backend.dto.SentimentWindowDto;
 import com.example.backend.model.News;
 import com.example.backend.model.SentimentType;
+import com.example.backend.repository.NewsHistoryRepository;
+import com.example.backend.repository.NewsListItem;
 import com.example.backend.repository.NewsRepository;
+import com.example.backend.repository.NewsRepository.UnreadCount;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.data.domain.Page;
@@ -15,27 +22,412 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.text.Normalizer;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
 
 @Service
 @RequiredArgsConstructor
 public class NewsService {
     private final NewsRepository newsRepository;
+    private final NewsHistoryRepository newsHistoryRepository;
+    private final NewsSearchIndex newsSearchIndex;
+    private final NewsNearDuplicateIndex nearDuplicateIndex;
+    private final NewsReadBuffer readBuffer;
+    private final NewsUnreadCounter unreadCounter;
+    private final NewsSentimentAggregator sentimentAggregator;
+    private final NewsEventStream eventStream;
+    private final NewsQueryCache queryCache;
+    private final NewsHotWindow hotWindow;
+    private final NewsReadStateService readState;
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    // 导出区间的起止时间，秒可选：导出文件中的时间带秒，直接回填时也能解析
+    private static final DateTimeFormatter TIME_BOUND_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm[:ss]");
     private static final Set<String> ALLOWED_COINS = Set.of("BTC", "ETH", "SOL", "USDT");
+    private static final int DEDUP_CHUNK_SIZE = 500;
+    private static final int UNREAD_SCAN_CHUNK = 500;
+    private static final int UNREAD_ID_CHUNK = 1000;
+    private static final Sort UNREAD_SORT = Sort.by(Sort.Direction.DESC, "publishedAt", "id");
+    private static final Comparator<NewsListItem> UNREAD_ORDER = Comparator
+            .comparing(NewsListItem::publishedAt, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+            .thenComparing(NewsListItem::id, Comparator.reverseOrder());
+    private static final int MAX_PAGE_SIZE = 100;
+    // 计数缓存的键已规范化为 币种×情绪×热窗口，正常情况下远达不到上限；超过时整体清空
+    private static final int MAX_COUNT_CACHE_ENTRIES = 256;
+    private static final Set<String> NEWS_FIELDS =
+            Set.of("id", "time", "coin", "sentiment", "summary", "source", "title", "read");
 
-    public PagedResponse<NewsDto> queryNews(String coin, String sentiment, int page, int size) {
+    // 按过滤条件缓存的新闻总数，在新闻写入、归档或已有新闻的 币种/情绪 变化时失效
+    private final Map<String, Long> totalCountCache = new ConcurrentHashMap<>();
+
+    /**
+     * 偏移分页查询，结果经版本化 LRU 缓存，导入或已读状态变化后自动失效
+     */
+    public PagedResponse<NewsDto> queryNews(String coin, String sentiment, int page, int size, String fields,
+                                            boolean history) {
+        size = clampPageSize(size);
+        validatePaging(page, size);
+        NewsQueryCache.Key key = new NewsQueryCache.Key(String.valueOf(coin).toUpperCase(Locale.ROOT),
+                String.valueOf(sentiment).toUpperCase(Locale.ROOT), page, size, String.valueOf(fields), history);
+        PagedResponse<NewsDto> cached = queryCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long version = queryCache.currentVersion();
+        PagedResponse<NewsDto> response = loadNews(coin, sentiment, page, size, fields, history);
+        queryCache.put(key, version, response);
+        return response;
+    }
+
+    /**
+     * 只看未读。带用户名时未读集合 = 在库新闻位图 \ 用户已读位图：未读较少时按这些ID分块取窄列后合并排序，
+     * 未读较多时沿 (publishedAt, id) 倒序扫描并用已读位图过滤，按 未读数 与 扫描行数估计（页尾位置 × 在库数 / 未读数）
+     * 取代价小的一种；未登录时由数据库按全局已读标记过滤，内存中只需跳过写缓冲里尚未落库的已读。
+     * 总数由位图运算或未读计数直接得出。已读状态与发布时间无关，因此不受热窗口限制
+     */
+    public PagedResponse<NewsDto> queryUnreadNews(String coin, String sentiment, int page, int size, String fields,
+                                                  String username) {
+        size = clampPageSize(size);
+        validatePaging(page, size);
+        Set<String> selected = parseFields(fields);
+        Long userId = readState.resolveUser(username);
+        String coinFilter = coinFilter(coin);
+        SentimentType sentimentFilter = sentimentFilter(sentiment);
+        Specification<News> filter = filterSpecification(coin, sentiment, true);
+        long skip = (long) page * size;
+
+        long total;
+        List<NewsListItem> matched;
+        if (userId != null) {
+            total = readState.unreadCount(userId, coinFilter, sentimentFilter);
+            long live = readState.liveCount(coinFilter, sentimentFilter);
+            if (!readState.isReady()) {
+                // 在库位图重建完成前不能据此列举未读ID，退回扫描
+                matched = scanUnread(filter, readState.readFilter(userId), skip, size);
+            } else if (skip >= total) {
+                matched = List.of();
+            } else if (total <= UNREAD_ID_CHUNK || (double) total * total < (double) (skip + size) * live) {
+                matched = unreadPageByIds(filter, readState.unreadIds(userId, coinFilter, sentimentFilter), skip, size);
+            } else {
+                matched = scanUnread(filter, readState.readFilter(userId), skip, size);
+            }
+        } else {
+            total = unreadCounter.count(coinFilter, sentimentFilter);
+            Specification<News> unread = filter.and((root, query, cb) -> cb.or(
+                    cb.isFalse(root.get("read")),
+                    cb.isNull(root.get("read"))));
+            matched = scanUnread(unread, readBuffer::isPending, skip, size);
+        }
+
+        List<NewsDto> content;
+        if (selected != null && !selected.contains("summary")) {
+            content = matched.stream().map(this::toDto).toList();
+        } else {
+            Map<Long, News> byId = new HashMap<>();
+            newsRepository.findAllById(matched.stream().map(NewsListItem::id).toList())
+                    .forEach(news -> byId.put(news.getId(), news));
+            content = matched.stream()
+                    .map(item -> byId.get(item.id()))
+                    .filter(Objects::nonNull)
+                    .map(this::toDto)
+                    .toList();
+        }
+        content = content.stream()
+                .map(dto -> dto.toBuilder().read(false).build())
+                .map(dto -> select(dto, selected))
+                .toList();
+
+        return PagedResponse.<NewsDto>builder()
+                .content(content)
+                .totalElements(total)
+                .totalPages((int) ((total + size - 1) / size))
+                .page(page)
+                .size(size)
+                .build();
+    }
+
+    /**
+     * 沿 (publishedAt, id) 倒序分块扫描窄列，跳过 read 判定为已读的行，凑满一页为止
+     */
+    private List<NewsListItem> scanUnread(Specification<News> filter, LongPredicate read, long skip, int size) {
+        List<NewsListItem> matched = new ArrayList<>(size);
+        NewsListItem last = null;
+        boolean more = true;
+        while (matched.size() < size && more) {
+            NewsListItem position = last;
+            Specification<News> specification = position == null ? filter : filter.and((root, query, cb) -> cb.or(
+                    cb.lessThan(root.get("publishedAt"), position.publishedAt()),
+                    cb.and(
+                            cb.equal(root.get("publishedAt"), position.publishedAt()),
+                            cb.lessThan(root.get("id"), position.id()))));
+            List<NewsListItem> chunk = newsRepository.findListItems(specification, UNREAD_SORT, 0, UNREAD_SCAN_CHUNK);
+            more = chunk.size() == UNREAD_SCAN_CHUNK;
+            for (NewsListItem item : chunk) {
+                last = item;
+                if (read.test(item.id())) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                matched.add(item);
+                if (matched.size() == size) {
+                    break;
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 按未读ID分块查询，每块由数据库排序后只取前 skip+size 行，合并后按同样的顺序取一页
+     */
+    private List<NewsListItem> unreadPageByIds(Specification<News> filter, List<Long> ids, long skip, int size) {
+        int window = (int) Math.min(skip + size, Integer.MAX_VALUE);
+        List<NewsListItem> candidates = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += UNREAD_ID_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + UNREAD_ID_CHUNK, ids.size()));
+            candidates.addAll(newsRepository.findListItems(
+                    filter.and((root, query, cb) -> root.get("id").in(chunk)), UNREAD_SORT, 0, window));
+        }
+        candidates.sort(UNREAD_ORDER);
+        if (skip >= candidates.size()) {
+            return List.of();
+        }
+        return candidates.subList((int) skip, (int) Math.min(skip + size, candidates.size()));
+    }
+
+    /**
+     * 带用户名时用该用户的已读位图覆盖响应中的已读标记；缓存中的结果不被修改
+     */
+    public PagedResponse<NewsDto> withReadState(PagedResponse<NewsDto> response, String username) {
+        Long userId = readState.resolveUser(username);
+        if (userId == null) {
+            return response;
+        }
+        LongPredicate userRead = readState.readFilter(userId);
+        return response.toBuilder()
+                .content(response.getContent().stream()
+                        .map(dto -> dto.getRead() == null ? dto : withRead(dto, userRead.test(dto.getId())))
+                        .toList())
+                .build();
+    }
+
+    private static NewsDto withRead(NewsDto dto, boolean read) {
+        NewsDto updated = dto.toBuilder().read(read).build();
+        return dto instanceof NewsDto.Projection ? NewsDto.Projection.of(updated) : updated;
+    }
+
+    public NewsQueryCacheStats queryCacheStats() {
+        return queryCache.stats();
+    }
+
+    private PagedResponse<NewsDto> loadNews(String coin, String sentiment, int page, int size, String fields,
+                                            boolean history) {
+        Set<String> selected = parseFields(fields);
+        if (history) {
+            return queryHistory(coin, sentiment, page, size, selected);
+        }
+        if (selected != null && !selected.contains("summary")) {
+            return queryNewsList(coin, sentiment, page, size, selected);
+        }
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "publishedAt"));
-        Specification<News> specification = (root, query, cb) -> {
+        Page<News> result = newsRepository.findAll(filterSpecification(coin, sentiment, false), pageable);
+        List<NewsDto> content = result.getContent().stream()
+                .map(news -> select(toDto(news), selected))
+                .toList();
+
+        return PagedResponse.<NewsDto>builder()
+                .content(content)
+                .totalElements(result.getTotalElements())
+                .totalPages(result.getTotalPages())
+                .page(result.getNumber())
+                .size(result.getSize())
+                .build();
+    }
+
+    /**
+     * 列表视图不需要摘要时走窄列投影，SQL 不读取 summary 这一 TEXT 列；摘要可通过 GET /api/news/{id} 单独获取
+     */
+    private PagedResponse<NewsDto> queryNewsList(String coin, String sentiment, int page, int size,
+                                                 Set<String> selected) {
+        Specification<News> filter = filterSpecification(coin, sentiment, false);
+        List<NewsDto> content = newsRepository.findListItems(filter, Sort.by(Sort.Direction.DESC, "publishedAt"),
+                        page * size, size).stream()
+                .map(item -> select(toDto(item), selected))
+                .toList();
+        long total = cachedCount(coin, sentiment, false, filter);
+
+        return PagedResponse.<NewsDto>builder()
+                .content(content)
+                .totalElements(total)
+                .totalPages((int) ((total + size - 1) / size))
+                .page(page)
+                .size(size)
+                .build();
+    }
+
+    /**
+     * history=true：合并 news 与 news_archive 两张表分页，已归档的历史新闻也能查到
+     */
+    private PagedResponse<NewsDto> queryHistory(String coin, String sentiment, int page, int size,
+                                                Set<String> selected) {
+        boolean withSummary = selected == null || selected.contains("summary");
+        List<NewsDto> content = newsHistoryRepository.findPage(coinFilter(coin), sentimentFilter(sentiment),
+                        null, null, page * size, size, withSummary).stream()
+                .map(news -> select(toDto(news), selected))
+                .toList();
+        long total = cachedCount(coin, sentiment, true, null);
+
+        return PagedResponse.<NewsDto>builder()
+                .content(content)
+                .totalElements(total)
+                .totalPages((int) ((total + size - 1) / size))
+                .page(page)
+                .size(size)
+                .build();
+    }
+
+    /**
+     * 先查 news 表，不存在时再查归档表；按ID查询会探测 news 的每个分区（主键为 (id, published_at)）
+     */
+    public NewsDto getNews(Long id) {
+        return newsRepository.findById(id)
+                .or(() -> newsHistoryRepository.findArchived(id))
+                .map(this::toDto)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "news not found"));
+    }
+
+    /**
+     * 全文检索：在内存倒排索引中按相关度排序取一页新闻ID，再按ID回表取出新闻；只能翻到相关度前 10000 条
+     */
+    public PagedResponse<NewsDto> searchNews(String q, String coin, String sentiment, int page, int size,
+                                             String fields) {
+        validatePaging(page, size);
+        if ((long) (page + 1) * size > NewsSearchIndex.MAX_RESULT_WINDOW) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "search results are limited to the first " + NewsSearchIndex.MAX_RESULT_WINDOW + " hits");
+        }
+        if (!newsSearchIndex.isReady()) {
+            // 启动后的全量重建完成前索引不完整，返回 503 由客户端稍后重试
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "search index is not ready");
+        }
+        Set<String> selected = parseFields(fields);
+        String coinFilter = coinFilter(coin);
+        SentimentType sentimentFilter = sentimentFilter(sentiment);
+
+        NewsSearchIndex.SearchResult result = newsSearchIndex.search(q, coinFilter, sentimentFilter, page, size);
+        Map<Long, News> byId = new HashMap<>();
+        newsRepository.findAllById(result.newsIds()).forEach(news -> byId.put(news.getId(), news));
+        List<NewsDto> content = result.newsIds().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(news -> select(toDto(news), selected))
+                .toList();
+
+        return PagedResponse.<NewsDto>builder()
+                .content(content)
+                .totalElements(result.totalHits())
+                .totalPages((int) ((result.totalHits() + size - 1) / size))
+                .page(page)
+                .size(size)
+                .build();
+    }
+
+    /**
+     * 游标分页：按 (publishedAt, id) 倒序做 keyset 查询，任意深度都只扫描一页数据。
+     * 总数默认不返回，withTotal=true 时从按过滤条件缓存的计数中取得，发布时间为空的新闻不参与游标分页
+     */
+    public PagedResponse<NewsDto> queryNewsByCursor(String coin, String sentiment, String cursor, int size,
+                                                    boolean withTotal, String fields, boolean history) {
+        validatePaging(0, size);
+        Set<String> selected = parseFields(fields);
+        NewsCursor position = StringUtils.hasText(cursor) ? NewsCursor.decode(cursor) : null;
+        Specification<News> filter = filterSpecification(coin, sentiment, history);
+        Specification<News> specification = filter.and((root, query, cb) -> {
+            if (position == null) {
+                return cb.isNotNull(root.get("publishedAt"));
+            }
+            return cb.or(
+                    cb.lessThan(root.get("publishedAt"), position.publishedAt()),
+                    cb.and(
+                            cb.equal(root.get("publishedAt"), position.publishedAt()),
+                            cb.lessThan(root.get("id"), position.id())));
+        });
+
+        // 多取一条用于判断是否还有下一页
+        Sort sort = Sort.by(Sort.Direction.DESC, "publishedAt", "id");
+        boolean withSummary = selected == null || selected.contains("summary");
+        List<CursorRow> rows;
+        if (history) {
+            // 历史查询同时翻 news 与 news_archive
+            rows = newsHistoryRepository.findPage(coinFilter(coin), sentimentFilter(sentiment),
+                            position != null ? position.publishedAt() : null, position != null ? position.id() : null,
+                            0, size + 1, withSummary).stream()
+                    .map(news -> new CursorRow(news.getPublishedAt(), toDto(news)))
+                    .toList();
+        } else if (!withSummary) {
+            rows = newsRepository.findListItems(specification, sort, 0, size + 1).stream()
+                    .map(item -> new CursorRow(item.publishedAt(), toDto(item)))
+                    .toList();
+        } else {
+            rows = newsRepository.findBy(specification, q -> q.sortBy(sort).limit(size + 1).all()).stream()
+                    .map(news -> new CursorRow(news.getPublishedAt(), toDto(news)))
+                    .toList();
+        }
+        boolean hasNext = rows.size() > size;
+        List<CursorRow> pageRows = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            CursorRow last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new NewsCursor(last.publishedAt(), last.dto().getId()).encode();
+        }
+
+        PagedResponse.PagedResponseBuilder<NewsDto> response = PagedResponse.<NewsDto>builder()
+                .content(pageRows.stream().map(row -> select(row.dto(), selected)).toList())
+                .page(0)
+                .size(size)
+                .nextCursor(nextCursor);
+        if (withTotal) {
+            long total = cachedCount(coin, sentiment, history, filter);
+            response.totalElements(total)
+                    .totalPages((int) ((total + size - 1) / size));
+        }
+        return response.build();
+    }
+
+    /**
+     * 列表过滤条件；history=false 时附加热窗口的发布时间下界，只访问最近的月分区
+     */
+    private Specification<News> filterSpecification(String coin, String sentiment, boolean history) {
+        LocalDateTime hotCutoff = history ? null : hotWindow.cutoff();
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
+            if (hotCutoff != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("publishedAt"), hotCutoff));
+            }
             if (StringUtils.hasText(coin) && !"all".equalsIgnoreCase(coin)) {
                 predicates.add(cb.equal(root.get("coin"), coin));
             }
@@ -49,73 +441,360 @@ public class NewsService {
             }
             return cb.and(predicates.toArray(new Predicate[0]));
         };
+    }
 
-        Page<News> result = newsRepository.findAll(specification, pageable);
-        List<NewsDto> content = result.getContent().stream()
-                .map(this::toDto)
-                .toList();
+    /**
+     * 导出使用的过滤条件：与列表查询相同的 币种/情绪 筛选，加上可选的发布时间区间 [from, to)，不受热窗口限制
+     */
+    ExportFilter exportFilter(String coin, String sentiment, String from, String to) {
+        LocalDateTime fromTime = parseTimeBound(from, "from");
+        LocalDateTime toTime = parseTimeBound(to, "to");
+        if (fromTime != null && toTime != null && !fromTime.isBefore(toTime)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be earlier than to");
+        }
+        return new ExportFilter(coinFilter(coin), sentimentFilter(sentiment), fromTime, toTime);
+    }
 
-        return PagedResponse.<NewsDto>builder()
-                .content(content)
-                .totalElements(result.getTotalElements())
-                .totalPages(result.getTotalPages())
-                .page(result.getNumber())
-                .size(result.getSize())
-                .build();
+    /**
+     * news 表上的导出条件
+     */
+    Specification<News> exportSpecification(ExportFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.coin() != null) {
+                predicates.add(cb.equal(root.get("coin"), filter.coin()));
+            }
+            if (filter.sentiment() != null) {
+                predicates.add(cb.equal(root.get("sentiment"), filter.sentiment()));
+            }
+            if (filter.from() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("publishedAt"), filter.from()));
+            }
+            if (filter.to() != null) {
+                predicates.add(cb.lessThan(root.get("publishedAt"), filter.to()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
     }
 
-    public Long ingestNews(NewsIngestRequest request) {
-        String normalizedCoin = normalizeCoin(request.getCoin());
-        SentimentType sentiment = parseSentiment(request.getSentiment());
-        LocalDateTime publishedAt = parsePublishedAt(request.getPublishedAt());
+    /**
+     * 偏移分页沿用改造前的行为，超过 100 的 size 按 100 处理而不是拒绝；游标分页与搜索由 validatePaging 直接拒绝
+     */
+    private static int clampPageSize(int size) {
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * 页码从 0 开始，每页 1..100 条，偏移量 page*size 不能超出 int；不合法时返回 400
+     */
+    private void validatePaging(int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page must be >= 0 and size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if ((long) page * size > Integer.MAX_VALUE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "page is too large");
+        }
+    }
 
-        News news = newsRepository.findFirstByTitleAndPublishedAt(request.getTitle(), publishedAt)
-                .orElseGet(() -> News.builder()
-                        .title(request.getTitle())
-                        .publishedAt(publishedAt)
-                        .build());
+    /**
+     * history=true 时统计 news 与 news_archive 两张表（filter 不使用），否则按 filter 统计 news 表
+     */
+    private long cachedCount(String coin, String sentiment, boolean history, Specification<News> filter) {
+        String coinKey = coinFilter(coin);
+        SentimentType sentimentKey = sentimentFilter(sentiment);
+        if (coinKey != null && !ALLOWED_COINS.contains(coinKey)) {
+            // 不支持的币种不进缓存，避免任意字符串撑大缓存
+            return history ? newsHistoryRepository.count(coinKey, sentimentKey) : newsRepository.count(filter);
+        }
+        // 键只含规范化后的 币种/情绪（无效情绪与 all 等价）；热窗口随月份滚动，键中带上窗口起点，跨月后自然换用新键
+        String key = (coinKey != null ? coinKey : "ALL") + "|" + (sentimentKey != null ? sentimentKey.name() : "ALL")
+                + "|" + (history ? "history" : hotWindow.cutoff().toLocalDate());
+        Long total = totalCountCache.get(key);
+        if (total == null) {
+            total = history ? newsHistoryRepository.count(coinKey, sentimentKey) : newsRepository.count(filter);
+            if (totalCountCache.size() >= MAX_COUNT_CACHE_ENTRIES) {
+                totalCountCache.clear();
+            }
+            totalCountCache.put(key, total);
+        }
+        return total;
+    }
 
-        news.setSummary(request.getSummary());
-        news.setCoin(normalizedCoin);
-        news.setSentiment(sentiment);
-        news.setSourceUrl(request.getSourceUrl());
-        if (news.getRead() == null) {
-            news.setRead(false);
+    /**
+     * 解析 fields 参数，返回所选字段集合；为空表示返回全部字段
+     */
+    private Set<String> parseFields(String fields) {
+        if (!StringUtils.hasText(fields)) {
+            return null;
+        }
+        Set<String> selected = new HashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!NEWS_FIELDS.contains(name)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unsupported field: " + name);
+            }
+            selected.add(name);
         }
+        // 游标分页依赖 id，始终返回
+        selected.add("id");
+        return selected;
+    }
+
+    /**
+     * 只保留所选字段，未选择的字段置空，由 NewsDto.Projection 在序列化时省略
+     */
+    private NewsDto select(NewsDto dto, Set<String> selected) {
+        if (selected == null) {
+            return dto;
+        }
+        return NewsDto.Projection.of(NewsDto.builder()
+                .id(dto.getId())
+                .time(selected.contains("time") ? dto.getTime() : null)
+                .coin(selected.contains("coin") ? dto.getCoin() : null)
+                .sentiment(selected.contains("sentiment") ? dto.getSentiment() : null)
+                .summary(selected.contains("summary") ? dto.getSummary() : null)
+                .source(selected.contains("source") ? dto.getSource() : null)
+                .title(selected.contains("title") ? dto.getTitle() : null)
+                .read(selected.contains("read") ? dto.getRead() : null)
+                .build());
+    }
 
-        News saved = newsRepository.save(news);
-        return saved.getId();
+    /**
+     * 新闻被归档出 news 表后，同步清理内存索引与查询缓存
+     */
+    public void onNewsArchived(List<Long> ids) {
+        newsSearchIndex.remove(ids);
+        readState.onNewsArchived(ids);
+        totalCountCache.clear();
+        invalidateQueryCache();
     }
 
+    /**
+     * 在事务提交后递增缓存版本，保证提交前并发查询到的旧数据即使写入缓存也会失效；无事务时立即递增
+     */
+    private void invalidateQueryCache() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    queryCache.bumpVersion();
+                }
+            });
+        } else {
+            queryCache.bumpVersion();
+        }
+    }
+
+    @Transactional
+    public Long ingestNews(NewsIngestRequest request) {
+        return ingestNormalized(List.of(normalize(request))).get(0);
+    }
+
+    @Transactional
     public List<Long> ingestNewsBatch(List<NewsIngestRequest> requests) {
-        List<News> newsToSave = new ArrayList<>();
-        
-        for (NewsIngestRequest request : requests) {
-            String normalizedCoin = normalizeCoin(request.getCoin());
-            SentimentType sentiment = parseSentiment(request.getSentiment());
-            LocalDateTime publishedAt = parsePublishedAt(request.getPublishedAt());
+        return ingestNormalized(requests.stream()
+                .map(this::normalize)
+                .toList());
+    }
+
+    /**
+     * 写入一批已校验、已规范化的新闻，返回与输入顺序一致的新闻ID（近似重复的新闻返回被归并到的新闻ID）。
+     * 查询已存在记录与写入在同一事务内，查出的实体保持托管，saveAll 不再逐条 merge；内存索引与计数在提交后更新
+     */
+    @Transactional
+    List<Long> ingestNormalized(List<NormalizedNews> batch) {
+        // 一次性按 (title, publishedAt) 分块查出已存在的记录，批内以哈希索引去重
+        Map<NewsKey, News> index = loadExisting(batch);
+        Set<News> newsToSave = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<News, int[]> signatures = new IdentityHashMap<>();
+        // 已存在新闻在更新前的 币种/情绪，变化时用于迁移未读计数和情绪窗口统计
+        Map<News, News> previous = new IdentityHashMap<>();
+        // 近似重复：已入库的记录按ID归并，同批次内的记录按实体归并
+        Map<NewsKey, Long> duplicateOfStored = new HashMap<>();
+        Map<NewsKey, News> duplicateInBatch = new HashMap<>();
+        MinHashIndex<News> batchSignatures = new MinHashIndex<>();
+        for (NormalizedNews normalized : batch) {
+            NewsKey key = normalized.key();
+            News news = index.get(key);
+            if (news == null && (duplicateOfStored.containsKey(key) || duplicateInBatch.containsKey(key))) {
+                continue;
+            }
+            boolean changed = false;
+            if (news == null) {
+                int[] signature = NewsNearDuplicateIndex.signature(normalized.request().getTitle(),
+                        normalized.request().getSummary());
+                Long duplicateOf = nearDuplicateIndex.findNearDuplicate(signature, normalized.coin(), normalized.publishedAt());
+                if (duplicateOf != null) {
+                    duplicateOfStored.put(key, duplicateOf);
+                    continue;
+                }
+                News sibling = findNearDuplicateInBatch(batchSignatures, signature, normalized);
+                if (sibling != null) {
+                    nearDuplicateIndex.countSuppressed();
+                    duplicateInBatch.put(key, sibling);
+                    continue;
+                }
+                news = newNews(normalized);
+                index.put(key, news);
+                if (nearDuplicateIndex.isEnabled() && signature != null) {
+                    batchSignatures.add(signature, news);
+                }
+                signatures.put(news, signature);
+                changed = true;
+            } else if (!previous.containsKey(news)) {
+                previous.put(news, News.builder().coin(news.getCoin()).sentiment(news.getSentiment())
+                        .publishedAt(news.getPublishedAt()).read(news.getRead()).build());
+            }
+            changed |= applyRequest(news, normalized);
+            if (changed) {
+                newsToSave.add(news);
+            }
+        }
 
-            News news = newsRepository.findFirstByTitleAndPublishedAt(request.getTitle(), publishedAt)
-                    .orElseGet(() -> News.builder()
-                            .title(request.getTitle())
-                            .publishedAt(publishedAt)
-                            .build());
+        if (!newsToSave.isEmpty()) {
+            newsRepository.saveAll(newsToSave);
+            invalidateQueryCache();
+            afterCommit(() -> onNewsSaved(newsToSave, signatures, previous));
+        }
+        return batch.stream()
+                .map(normalized -> {
+                    NewsKey key = normalized.key();
+                    News news = index.get(key);
+                    if (news != null) {
+                        return news.getId();
+                    }
+                    News sibling = duplicateInBatch.get(key);
+                    return sibling != null ? sibling.getId() : duplicateOfStored.get(key);
+                })
+                .toList();
+    }
 
-            news.setSummary(request.getSummary());
-            news.setCoin(normalizedCoin);
-            news.setSentiment(sentiment);
-            news.setSourceUrl(request.getSourceUrl());
-            if (news.getRead() == null) {
-                news.setRead(false);
+    /**
+     * 新闻写入提交后更新搜索索引、已读位图、未读计数、情绪窗口与近似重复索引，并推送新增的新闻
+     */
+    private void onNewsSaved(Set<News> newsToSave, Map<News, int[]> signatures, Map<News, News> previous) {
+        newsSearchIndex.index(newsToSave);
+        readState.onNewsCreated(signatures.keySet());
+        boolean countsChanged = !signatures.isEmpty();
+        for (News news : newsToSave) {
+            News before = previous.get(news);
+            if (signatures.containsKey(news)) {
+                unreadCounter.increment(news);
+                sentimentAggregator.add(news);
+            } else if (before != null && (!Objects.equals(before.getCoin(), news.getCoin())
+                    || before.getSentiment() != news.getSentiment())) {
+                if (!Boolean.TRUE.equals(before.getRead())) {
+                    unreadCounter.decrement(before);
+                    unreadCounter.increment(news);
+                }
+                sentimentAggregator.remove(before.getCoin(), before.getSentiment(), before.getPublishedAt());
+                sentimentAggregator.add(news);
+                readState.onNewsMoved(before, news);
+                countsChanged = true;
+            }
+        }
+        if (countsChanged) {
+            totalCountCache.clear();
+        }
+        if (!signatures.isEmpty()) {
+            if (eventStream.hasSubscribers()) {
+                eventStream.publish(signatures.keySet().stream()
+                        .sorted(Comparator.comparing(News::getId))
+                        .map(this::toDto)
+                        .toList());
             }
+            signatures.forEach((news, signature) ->
+                    nearDuplicateIndex.add(signature, news.getId(), news.getCoin(), news.getPublishedAt()));
+        }
+    }
 
-            newsToSave.add(news);
+    private News findNearDuplicateInBatch(MinHashIndex<News> batchSignatures, int[] signature,
+                                          NormalizedNews normalized) {
+        if (!nearDuplicateIndex.isEnabled() || signature == null || batchSignatures.size() == 0) {
+            return null;
         }
+        return batchSignatures.findSimilar(signature, nearDuplicateIndex.getMinSimilarity(), candidate ->
+                candidate.getCoin().equals(normalized.coin())
+                        && Duration.between(candidate.getPublishedAt(), normalized.publishedAt()).abs()
+                        .compareTo(nearDuplicateIndex.getWindow()) <= 0);
+    }
 
-        List<News> savedNews = newsRepository.saveAll(newsToSave);
-        return savedNews.stream()
-                .map(News::getId)
-                .toList();
+    private Map<NewsKey, News> loadExisting(List<NormalizedNews> batch) {
+        // 每个去重键保留批内首次出现的原始标题作为查询条件
+        Map<NewsKey, String> titlesByKey = new LinkedHashMap<>();
+        batch.forEach(normalized -> titlesByKey.putIfAbsent(normalized.key(), normalized.request().getTitle()));
+        List<NewsKey> keys = new ArrayList<>(titlesByKey.keySet());
+        Map<NewsKey, News> index = new HashMap<>(keys.size() * 2);
+        for (int from = 0; from < keys.size(); from += DEDUP_CHUNK_SIZE) {
+            List<NewsKey> chunk = keys.subList(from, Math.min(from + DEDUP_CHUNK_SIZE, keys.size()));
+            Set<String> titles = new HashSet<>();
+            Set<LocalDateTime> publishedAts = new HashSet<>();
+            chunk.forEach(key -> {
+                titles.add(titlesByKey.get(key));
+                publishedAts.add(key.publishedAt());
+            });
+            // IN (...) AND IN (...) 会查出交叉组合，这里只保留批内真正出现过的键
+            Set<NewsKey> wanted = new HashSet<>(chunk);
+            for (News news : newsRepository.findByTitleInAndPublishedAtIn(titles, publishedAts)) {
+                NewsKey key = NewsKey.of(news.getTitle(), news.getPublishedAt());
+                if (wanted.contains(key)) {
+                    index.putIfAbsent(key, news);
+                }
+            }
+        }
+        return index;
+    }
+
+    NormalizedNews normalize(NewsIngestRequest request) {
+        return new NormalizedNews(
+                request,
+                normalizeCoin(request.getCoin()),
+                parseSentiment(request.getSentiment()),
+                parsePublishedAt(request.getPublishedAt()));
+    }
+
+    private News newNews(NormalizedNews normalized) {
+        return News.builder()
+                .title(normalized.request().getTitle())
+                .publishedAt(normalized.publishedAt())
+                .build();
+    }
+
+    /**
+     * 将请求内容写入实体，返回实体是否发生了变化
+     */
+    private boolean applyRequest(News news, NormalizedNews normalized) {
+        NewsIngestRequest request = normalized.request();
+        boolean changed = !Objects.equals(news.getSummary(), request.getSummary())
+                || !Objects.equals(news.getCoin(), normalized.coin())
+                || news.getSentiment() != normalized.sentiment()
+                || !Objects.equals(news.getSourceUrl(), request.getSourceUrl())
+                || news.getRead() == null;
+
+        news.setSummary(request.getSummary());
+        news.setCoin(normalized.coin());
+        news.setSentiment(normalized.sentiment());
+        news.setSourceUrl(request.getSourceUrl());
+        if (news.getRead() == null) {
+            news.setRead(false);
+        }
+        return changed;
+    }
+
+    private NewsDto toDto(NewsListItem item) {
+        return NewsDto.builder()
+                .id(item.id())
+                .coin(item.coin())
+                .sentiment(item.sentiment() != null ? item.sentiment().name().toLowerCase(Locale.ROOT) : null)
+                .source(item.sourceUrl())
+                .title(item.title())
+                .time(item.publishedAt() != null ? item.publishedAt().format(FORMATTER) : null)
+                .read(Boolean.TRUE.equals(item.read()) || readBuffer.isPending(item.id()))
+                .build();
     }
 
     private NewsDto toDto(News news) {
@@ -127,16 +806,145 @@ public class NewsService {
                 .source(news.getSourceUrl())
                 .title(news.getTitle())
                 .time(news.getPublishedAt() != null ? news.getPublishedAt().format(FORMATTER) : null)
-                .read(Boolean.TRUE.equals(news.getRead()))
+                .read(Boolean.TRUE.equals(news.getRead()) || readBuffer.isPending(news.getId()))
                 .build();
     }
 
-    public void markAsRead(Long id) {
-        News news = newsRepository.findById(id)
-                .orElseThrow(() -> new org.springframework.web.server.ResponseStatusException(
-                        org.springframework.http.HttpStatus.NOT_FOUND, "消息不存在: " + id));
-        news.setRead(true);
-        newsRepository.save(news);
+    /**
+     * 带用户名时只写入该用户的已读位图；否则进入全局已读标记的写后缓冲，由 NewsReadBuffer 定时合并落库。
+     * 不存在的ID返回 404，存在性在在库位图上判断，不回表
+     */
+    public void markAsRead(Long id, String username) {
+        if (!readState.exists(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "news not found");
+        }
+        Long userId = readState.resolveUser(username);
+        if (userId != null) {
+            readState.markRead(userId, List.of(id));
+            return;
+        }
+        readBuffer.add(id);
+        queryCache.bumpVersion();
+    }
+
+    /**
+     * 批量标记已读：按ID列表或按 币种/情绪/发布时间 过滤条件执行单条 UPDATE，返回实际更新的行数
+     */
+    @Transactional
+    public long markAsReadBulk(NewsBulkReadRequest request, String username) {
+        boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean hasFilter = StringUtils.hasText(request.getCoin()) || StringUtils.hasText(request.getSentiment())
+                || StringUtils.hasText(request.getBefore());
+        if (!hasIds && !hasFilter && !request.isAll()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "specify ids, a filter (coin, sentiment, before) or all=true");
+        }
+        Long userId = readState.resolveUser(username);
+        if (userId != null) {
+            return markAsReadForUser(userId, request);
+        }
+        invalidateQueryCache();
+        // 先在同一事务内统计将被标记的未读分布，提交后再扣减未读计数；回滚时计数不变
+        List<UnreadCount> marked = new ArrayList<>();
+        long updated;
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            List<Long> ids = request.getIds().stream().distinct().toList();
+            updated = 0;
+            for (int from = 0; from < ids.size(); from += NewsReadBuffer.FLUSH_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + NewsReadBuffer.FLUSH_CHUNK_SIZE, ids.size()));
+                marked.addAll(newsRepository.countUnreadGroupedByIds(chunk));
+                updated += newsRepository.markReadByIds(chunk);
+            }
+        } else {
+            String coin = StringUtils.hasText(request.getCoin()) && !"all".equalsIgnoreCase(request.getCoin())
+                    ? normalizeCoin(request.getCoin()) : null;
+            SentimentType sentiment = StringUtils.hasText(request.getSentiment()) && !"all".equalsIgnoreCase(request.getSentiment())
+                    ? parseSentiment(request.getSentiment()) : null;
+            LocalDateTime before = StringUtils.hasText(request.getBefore()) ? parsePublishedAt(request.getBefore()) : null;
+            marked.addAll(newsRepository.countUnreadGroupedByFilter(coin, sentiment, before));
+            updated = newsRepository.markReadByFilter(coin, sentiment, before);
+        }
+        afterCommit(() -> unreadCounter.decrement(marked));
+        return updated;
+    }
+
+    /**
+     * 在当前事务提交后执行，回滚时不执行；无事务时立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 用户维度的批量已读：只按 币种/情绪 过滤时直接把在库新闻位图并入用户位图，带发布时间条件时才查询ID
+     */
+    private long markAsReadForUser(Long userId, NewsBulkReadRequest request) {
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            return readState.markRead(userId, request.getIds());
+        }
+        String coin = StringUtils.hasText(request.getCoin()) && !"all".equalsIgnoreCase(request.getCoin())
+                ? normalizeCoin(request.getCoin()) : null;
+        SentimentType sentiment = StringUtils.hasText(request.getSentiment()) && !"all".equalsIgnoreCase(request.getSentiment())
+                ? parseSentiment(request.getSentiment()) : null;
+        if (!StringUtils.hasText(request.getBefore())) {
+            return readState.markAllRead(userId, coin, sentiment);
+        }
+        // 按ID分块取出并标记，不一次性把全部符合条件的ID加载到内存
+        LocalDateTime before = parsePublishedAt(request.getBefore());
+        long marked = 0;
+        long lastId = 0;
+        List<Long> chunk;
+        do {
+            chunk = newsRepository.findIdsByFilterAfter(coin, sentiment, before, lastId,
+                    PageRequest.of(0, NewsReadBuffer.FLUSH_CHUNK_SIZE));
+            if (!chunk.isEmpty()) {
+                marked += readState.markRead(userId, chunk);
+                lastId = chunk.get(chunk.size() - 1);
+            }
+        } while (chunk.size() == NewsReadBuffer.FLUSH_CHUNK_SIZE);
+        return marked;
+    }
+
+    /**
+     * 订阅新入库新闻的 SSE 推送，coin/sentiment 为 all 表示不过滤
+     */
+    public SseEmitter subscribe(String coin, String sentiment) {
+        String normalizedCoin = StringUtils.hasText(coin) && !"all".equalsIgnoreCase(coin) ? normalizeCoin(coin) : null;
+        String normalizedSentiment = StringUtils.hasText(sentiment) && !"all".equalsIgnoreCase(sentiment)
+                ? parseSentiment(sentiment).name().toLowerCase(Locale.ROOT) : null;
+        return eventStream.subscribe(normalizedCoin, normalizedSentiment);
+    }
+
+    /**
+     * 按币种查询 1h/24h/7d 滚动情绪统计，coin 为 all 时返回全部币种
+     */
+    public Map<String, Map<String, SentimentWindowDto>> sentimentWindows(String coin) {
+        String normalized = StringUtils.hasText(coin) && !"all".equalsIgnoreCase(coin) ? normalizeCoin(coin) : null;
+        return sentimentAggregator.snapshot(normalized);
+    }
+
+    private String coinFilter(String coin) {
+        return StringUtils.hasText(coin) && !"all".equalsIgnoreCase(coin) ? coin.trim().toUpperCase(Locale.ROOT) : null;
+    }
+
+    private SentimentType sentimentFilter(String sentiment) {
+        if (StringUtils.hasText(sentiment) && !"all".equalsIgnoreCase(sentiment)) {
+            try {
+                return SentimentType.valueOf(sentiment.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ignored) {
+                // ignore invalid sentiment filter
+            }
+        }
+        return null;
     }
 
     private String normalizeCoin(String coin) {
@@ -171,4 +979,44 @@ public class NewsService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid publishedAt, expected yyyy-MM-dd HH:mm");
         }
     }
+
+    private LocalDateTime parseTimeBound(String value, String name) {
+        if (!StringUtils.hasText(value)) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value.trim(), TIME_BOUND_FORMATTER);
+        } catch (Exception ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "invalid " + name + ", expected yyyy-MM-dd HH:mm or yyyy-MM-dd HH:mm:ss");
+        }
+    }
+
+    /**
+     * 导出的过滤条件，同一组条件同时用于 news 与 news_archive；各字段为空表示不限制
+     */
+    record ExportFilter(String coin, SentimentType sentiment, LocalDateTime from, LocalDateTime to) {
+    }
+
+    private record CursorRow(LocalDateTime publishedAt, NewsDto dto) {
+    }
+
+    /**
+     * 去重键；标题按 utf8mb4_general_ci 的比较规则折叠（忽略大小写、重音和尾部空格），与数据库查出的匹配一致
+     */
+    private record NewsKey(String title, LocalDateTime publishedAt) {
+        static NewsKey of(String title, LocalDateTime publishedAt) {
+            String folded = Normalizer.normalize(title.stripTrailing(), Normalizer.Form.NFD)
+                    .replaceAll("\\p{M}", "")
+                    .toLowerCase(Locale.ROOT);
+            return new NewsKey(folded, publishedAt);
+        }
+    }
+
+    record NormalizedNews(NewsIngestRequest request, String coin, SentimentType sentiment,
+                                  LocalDateTime publishedAt) {
+        NewsKey key() {
+            return NewsKey.of(request.getTitle(), publishedAt);
+        }
+    }
 }
@@ -0,0 +1,198 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.NewsIngestLineResult;
+import com.example.backend.dto.NewsIngestRequest;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * NDJSON 流式导入：逐行解析、校验、规范化，按固定大小分块写库并逐块输出每行结果，
+ * 内存占用只与分块大小和单行长度有关，与导入总量无关；超过长度上限的行直接返回错误
+ */
+@Service
+@Slf4j
+public class NewsStreamIngestService {
+    static final int CHUNK_SIZE = 500;
+    // 写库失败时返回给客户端的通用错误，具体异常只记录在日志中
+    static final String PERSIST_FAILED = "persist failed";
+
+    private final NewsService newsService;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader requestReader;
+    private final Validator validator;
+    private final int maxLineLength;
+
+    public NewsStreamIngestService(NewsService newsService, ObjectMapper objectMapper, Validator validator,
+                                   @Value("${news.ingest.stream.max-line-length:65536}") int maxLineLength) {
+        this.newsService = newsService;
+        this.objectMapper = objectMapper;
+        this.requestReader = objectMapper.readerFor(NewsIngestRequest.class);
+        this.validator = validator;
+        this.maxLineLength = maxLineLength;
+    }
+
+    public void ingest(InputStream input, OutputStream output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+        generator.setRootValueSeparator(null);
+        Chunk chunk = new Chunk();
+        long lineNumber = 0;
+        long succeeded = 0;
+        long failed = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.length() > maxLineLength) {
+                chunk.fail(lineNumber, "line exceeds " + maxLineLength + " characters");
+            } else {
+                if (!StringUtils.hasText(line)) {
+                    continue;
+                }
+                try {
+                    NewsIngestRequest request = requestReader.readValue(line);
+                    validate(request);
+                    chunk.add(lineNumber, newsService.normalize(request));
+                } catch (JsonProcessingException ex) {
+                    chunk.fail(lineNumber, "invalid json: " + ex.getOriginalMessage());
+                } catch (ResponseStatusException ex) {
+                    chunk.fail(lineNumber, ex.getReason());
+                }
+            }
+            if (chunk.size() >= CHUNK_SIZE) {
+                long[] counts = flush(chunk, generator);
+                succeeded += counts[0];
+                failed += counts[1];
+                chunk = new Chunk();
+            }
+        }
+        long[] counts = flush(chunk, generator);
+        succeeded += counts[0];
+        failed += counts[1];
+
+        writeLine(generator, Map.of("status", "done", "lines", lineNumber, "succeeded", succeeded, "failed", failed));
+        generator.flush();
+        log.info("NDJSON news ingest finished: {} lines, {} succeeded, {} failed", lineNumber, succeeded, failed);
+    }
+
+    private void validate(NewsIngestRequest request) {
+        if (request == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "empty record");
+        }
+        Set<ConstraintViolation<NewsIngestRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .sorted(Comparator.comparing(v -> v.getPropertyPath().toString()))
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .collect(Collectors.joining("; "));
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+        }
+    }
+
+    /**
+     * 写入当前分块并按行号顺序输出结果，返回 {成功数, 失败数}。
+     * 整块写库失败（事务已整体回滚）时逐行重试，只有单独写入仍失败的行返回错误
+     */
+    private long[] flush(Chunk chunk, JsonGenerator generator) throws IOException {
+        if (chunk.size() == 0) {
+            return new long[]{0, 0};
+        }
+        List<Long> ids = persist(chunk.records);
+
+        long succeeded = 0;
+        long failed = 0;
+        int recordIndex = 0;
+        for (NewsIngestLineResult result : chunk.results) {
+            if (result.getStatus() == null) {
+                Long id = ids.get(recordIndex);
+                if (id == null) {
+                    result.setStatus("error");
+                    result.setError(PERSIST_FAILED);
+                } else {
+                    result.setStatus("ok");
+                    result.setId(id);
+                }
+                recordIndex++;
+            }
+            if ("ok".equals(result.getStatus())) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+            writeLine(generator, result);
+        }
+        generator.flush();
+        return new long[]{succeeded, failed};
+    }
+
+    /**
+     * 返回与 records 顺序一致的新闻ID，写入失败的位置为 null
+     */
+    private List<Long> persist(List<NewsService.NormalizedNews> records) {
+        if (records.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return newsService.ingestNormalized(records);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to persist NDJSON news chunk of {} lines, retrying line by line", records.size(), ex);
+        }
+        List<Long> ids = new ArrayList<>(records.size());
+        for (NewsService.NormalizedNews record : records) {
+            try {
+                ids.add(newsService.ingestNormalized(List.of(record)).get(0));
+            } catch (RuntimeException ex) {
+                log.error("Failed to persist NDJSON news line", ex);
+                ids.add(null);
+            }
+        }
+        return ids;
+    }
+
+    private void writeLine(JsonGenerator generator, Object value) throws IOException {
+        objectMapper.writeValue(generator, value);
+        generator.writeRaw('\n');
+    }
+
+    // 一个分块内的待写记录和每行结果（结果的 status 为空表示等待写库）
+    private static final class Chunk {
+        private final List<NewsService.NormalizedNews> records = new ArrayList<>();
+        private final List<NewsIngestLineResult> results = new ArrayList<>();
+
+        void add(long line, NewsService.NormalizedNews record) {
+            records.add(record);
+            results.add(NewsIngestLineResult.builder().line(line).build());
+        }
+
+        void fail(long line, String error) {
+            results.add(NewsIngestLineResult.builder().line(line).status("error").error(error).build());
+        }
+
+        int size() {
+            return results.size();
+        }
+    }
+}
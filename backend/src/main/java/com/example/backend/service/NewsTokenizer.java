@@ -0,0 +1,85 @@
+package com.example.backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 新闻全文检索分词：拉丁字母/数字按词切分并转小写，CJK 连续文本切成二元组（bigram），
+ * 建索引时额外保留单字以支持单字查询
+ */
+final class NewsTokenizer {
+
+    private NewsTokenizer() {
+    }
+
+    static List<String> indexTokens(String text) {
+        return tokenize(text, true);
+    }
+
+    static List<String> queryTokens(String text) {
+        return tokenize(text, false);
+    }
+
+    /**
+     * 相似度特征：与查询分词相同，CJK 只取二元组
+     */
+    static List<String> featureTokens(String text) {
+        return tokenize(text, false);
+    }
+
+    private static List<String> tokenize(String text, boolean withUnigrams) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        StringBuilder word = new StringBuilder();
+        List<String> cjkRun = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (isCjk(codePoint)) {
+                flushWord(word, tokens);
+                cjkRun.add(new String(Character.toChars(codePoint)));
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                flushCjk(cjkRun, tokens, withUnigrams);
+                word.appendCodePoint(codePoint);
+            } else {
+                flushWord(word, tokens);
+                flushCjk(cjkRun, tokens, withUnigrams);
+            }
+        }
+        flushWord(word, tokens);
+        flushCjk(cjkRun, tokens, withUnigrams);
+        return tokens;
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString().toLowerCase(Locale.ROOT));
+            word.setLength(0);
+        }
+    }
+
+    private static void flushCjk(List<String> run, List<String> tokens, boolean withUnigrams) {
+        if (run.isEmpty()) {
+            return;
+        }
+        if (run.size() == 1 || withUnigrams) {
+            tokens.addAll(run);
+        }
+        for (int j = 0; j + 1 < run.size(); j++) {
+            tokens.add(run.get(j) + run.get(j + 1));
+        }
+        run.clear();
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
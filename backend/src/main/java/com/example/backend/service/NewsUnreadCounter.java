@@ -0,0 +1,133 @@
+package com.example.backend.service;
+
+import com.example.backend.model.News;
+import com.example.backend.model.SentimentType;
+import com.example.backend.repository.NewsRepository;
+import com.example.backend.repository.NewsRepository.UnreadCount;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按 币种 + 情绪 维护的未读新闻计数。
+ * 启动时从数据库分组统计一次作为初值，之后由导入和标记已读路径增量维护，并定时与数据库对账修正漂移
+ */
+@Component
+@Slf4j
+public class NewsUnreadCounter {
+    private final NewsRepository newsRepository;
+    private final Map<UnreadKey, LongAdder> counters = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public NewsUnreadCounter(NewsRepository newsRepository) {
+        this.newsRepository = newsRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOnStartup() {
+        reconcile();
+    }
+
+    /**
+     * 用数据库分组统计结果覆盖内存计数；对账期间并发的增减可能被覆盖，由下一次对账修正
+     */
+    @Scheduled(initialDelayString = "${news.unread-counter.reconcile-interval-ms:300000}",
+            fixedDelayString = "${news.unread-counter.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        Map<UnreadKey, Long> actual = new HashMap<>();
+        for (UnreadCount count : newsRepository.countUnreadGrouped()) {
+            actual.put(new UnreadKey(count.getCoin(), count.getSentiment()), count.getTotal());
+        }
+        long drift = 0;
+        for (Map.Entry<UnreadKey, LongAdder> entry : counters.entrySet()) {
+            if (!actual.containsKey(entry.getKey())) {
+                drift += Math.abs(entry.getValue().sumThenReset());
+            }
+        }
+        for (Map.Entry<UnreadKey, Long> entry : actual.entrySet()) {
+            LongAdder adder = counters.computeIfAbsent(entry.getKey(), key -> new LongAdder());
+            long previous = adder.sumThenReset();
+            adder.add(entry.getValue());
+            drift += Math.abs(previous - entry.getValue());
+        }
+        if (ready && drift > 0) {
+            log.warn("Unread news counters drifted by {} and were reconciled", drift);
+        }
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void increment(News news) {
+        add(news.getCoin(), news.getSentiment(), 1);
+    }
+
+    public void decrement(News news) {
+        add(news.getCoin(), news.getSentiment(), -1);
+    }
+
+    /**
+     * 按标记已读前分组统计出的未读数扣减计数
+     */
+    public void decrement(List<UnreadCount> counts) {
+        counts.forEach(count -> add(count.getCoin(), count.getSentiment(), -count.getTotal()));
+    }
+
+    public long total() {
+        return counters.values().stream()
+                .mapToLong(LongAdder::sum)
+                .sum();
+    }
+
+    /**
+     * 指定 币种/情绪 下的未读数，coin/sentiment 为空表示不过滤
+     */
+    public long count(String coin, SentimentType sentiment) {
+        long total = 0;
+        for (Map.Entry<UnreadKey, LongAdder> entry : counters.entrySet()) {
+            UnreadKey key = entry.getKey();
+            if ((coin == null || coin.equals(key.coin())) && (sentiment == null || sentiment == key.sentiment())) {
+                total += entry.getValue().sum();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 币种 -> 情绪 -> 未读数，情绪取小写名称，与新闻接口返回的格式一致
+     */
+    public Map<String, Map<String, Long>> breakdown() {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        counters.forEach((key, adder) -> {
+            long value = adder.sum();
+            if (value == 0) {
+                return;
+            }
+            String coin = key.coin() != null ? key.coin() : "unknown";
+            String sentiment = key.sentiment() != null ? key.sentiment().name().toLowerCase(Locale.ROOT) : "unknown";
+            result.computeIfAbsent(coin, c -> new TreeMap<>()).merge(sentiment, value, Long::sum);
+        });
+        return result;
+    }
+
+    private void add(String coin, SentimentType sentiment, long delta) {
+        if (delta != 0) {
+            counters.computeIfAbsent(new UnreadKey(coin, sentiment), key -> new LongAdder()).add(delta);
+        }
+    }
+
+    private record UnreadKey(String coin, SentimentType sentiment) {
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.backend.service;
+
+import com.example.backend.model.PortfolioHistory;
+import com.example.backend.repository.PortfolioHistoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 持仓占比历史的内存透视表：按日期（相对首日的天数）为下标，每个币种一列，占比以百分之一为单位存成 int，
+ * 缺失值为 Integer.MIN_VALUE。启动时从数据库加载一次，之后由 PortfolioUpdateService 写历史时同步追加，
+ * 查询接口直接读列数组，不再扫描 portfolio_history 表
+ */
+@Component
+@Slf4j
+public class PortfolioHistoryPivot {
+    private static final int MISSING = Integer.MIN_VALUE;
+    private static final int INITIAL_DAYS = 64;
+
+    private final PortfolioHistoryRepository historyRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private LocalDate origin;
+    private int days;
+    // 币种 -> 占比列，按币种名排序输出
+    private final Map<String, int[]> columns = new TreeMap<>();
+    private int capacity = INITIAL_DAYS;
+    private volatile boolean ready;
+    private volatile List<Map<String, Object>> view;
+
+    public PortfolioHistoryPivot(PortfolioHistoryRepository historyRepository) {
+        this.historyRepository = historyRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * 在写锁内读库：并发写入的记录要么已提交并被读到，要么在重建完成后再追加，不会丢失
+     */
+    public void rebuild() {
+        List<PortfolioHistory> history;
+        lock.writeLock().lock();
+        try {
+            history = historyRepository.findAll(Sort.by("snapDate").ascending());
+            origin = null;
+            days = 0;
+            capacity = INITIAL_DAYS;
+            columns.clear();
+            history.forEach(this::putLocked);
+            view = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Portfolio history pivot rebuilt: {} rows over {} days", history.size(), days);
+    }
+
+    /**
+     * 写入或覆盖一条历史记录，由写 portfolio_history 的路径在落库后调用
+     */
+    public void put(List<PortfolioHistory> history) {
+        lock.writeLock().lock();
+        try {
+            history.forEach(this::putLocked);
+            view = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按日期升序的透视结果，每项为 {date: yyyy-MM-dd, 币种: 占比}；结果只读，在下次写入前复用
+     */
+    public List<Map<String, Object>> history() {
+        if (!ready) {
+            rebuild();
+        }
+        List<Map<String, Object>> cached = view;
+        if (cached != null) {
+            return cached;
+        }
+        lock.readLock().lock();
+        try {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (int day = 0; day < days; day++) {
+                Map<String, Object> row = row(day);
+                if (row != null) {
+                    rows.add(row);
+                }
+            }
+            cached = Collections.unmodifiableList(rows);
+            view = cached;
+            return cached;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 取 [from, to] 区间（任一端为空表示不限）的历史，maxPoints 不为空时对每个币种用 LTTB 降采样：
+     * 每个币种保留 maxPoints / 币种数 个形状关键点，输出这些日期的并集，总行数不超过 maxPoints；
+     * 需要降采样而 maxPoints 不足每个币种 3 个点时返回 400，保证结果不超过 maxPoints
+     */
+    public List<Map<String, Object>> history(LocalDate from, LocalDate to, Integer maxPoints) {
+        if (from == null && to == null && maxPoints == null) {
+            return history();
+        }
+        if (!ready) {
+            rebuild();
+        }
+        lock.readLock().lock();
+        try {
+            if (origin == null) {
+                return List.of();
+            }
+            int first = from == null ? 0 : (int) Math.max(0, from.toEpochDay() - origin.toEpochDay());
+            int last = to == null ? days - 1 : (int) Math.min(days - 1, to.toEpochDay() - origin.toEpochDay());
+            if (first > last) {
+                return List.of();
+            }
+            boolean[] selected = new boolean[last - first + 1];
+            if (maxPoints == null || selected.length <= maxPoints) {
+                // 区间天数不超过上限时无需降采样
+                Arrays.fill(selected, true);
+            } else {
+                int coins = Math.max(1, columns.size());
+                if (maxPoints < LttbDownsampler.MIN_POINTS * coins) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "maxPoints must be at least "
+                            + LttbDownsampler.MIN_POINTS * coins + " for " + coins + " coins");
+                }
+                int perCoin = maxPoints / coins;
+                for (int[] column : columns.values()) {
+                    selectShapePoints(column, first, last, perCoin, selected);
+                }
+            }
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (int day = first; day <= last; day++) {
+                if (selected[day - first]) {
+                    Map<String, Object> row = row(day);
+                    if (row != null) {
+                        rows.add(row);
+                    }
+                }
+            }
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void selectShapePoints(int[] column, int first, int last, int threshold, boolean[] selected) {
+        int count = 0;
+        for (int day = first; day <= last; day++) {
+            if (column[day] != MISSING) {
+                count++;
+            }
+        }
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        int index = 0;
+        for (int day = first; day <= last; day++) {
+            if (column[day] != MISSING) {
+                xs[index] = day;
+                ys[index] = column[day];
+                index++;
+            }
+        }
+        for (int point : LttbDownsampler.select(xs, ys, threshold)) {
+            selected[(int) xs[point] - first] = true;
+        }
+    }
+
+    private Map<String, Object> row(int day) {
+        Map<String, Object> row = null;
+        for (Map.Entry<String, int[]> column : columns.entrySet()) {
+            int value = column.getValue()[day];
+            if (value == MISSING) {
+                continue;
+            }
+            if (row == null) {
+                row = new LinkedHashMap<>();
+                row.put("date", origin.plusDays(day).toString());
+            }
+            row.put(column.getKey(), BigDecimal.valueOf(value, 2));
+        }
+        return row != null ? Collections.unmodifiableMap(row) : null;
+    }
+
+    private void putLocked(PortfolioHistory history) {
+        if (history.getSnapDate() == null || history.getCoin() == null) {
+            return;
+        }
+        LocalDate date = history.getSnapDate();
+        if (origin == null) {
+            origin = date;
+        } else if (date.isBefore(origin)) {
+            shiftOrigin(date);
+        }
+        int day = (int) (date.toEpochDay() - origin.toEpochDay());
+        if (day >= capacity) {
+            grow(day + 1);
+        }
+        int[] column = columns.computeIfAbsent(history.getCoin(), coin -> emptyColumn(capacity));
+        column[day] = history.getPercentage() != null
+                ? history.getPercentage().setScale(2, RoundingMode.HALF_UP).unscaledValue().intValueExact()
+                : MISSING;
+        days = Math.max(days, day + 1);
+    }
+
+    // 写入早于首日的记录时整体右移
+    private void shiftOrigin(LocalDate newOrigin) {
+        int shift = (int) (origin.toEpochDay() - newOrigin.toEpochDay());
+        int newCapacity = Math.max(capacity, days + shift);
+        for (Map.Entry<String, int[]> entry : columns.entrySet()) {
+            int[] shifted = emptyColumn(newCapacity);
+            System.arraycopy(entry.getValue(), 0, shifted, shift, days);
+            entry.setValue(shifted);
+        }
+        capacity = newCapacity;
+        days += shift;
+        origin = newOrigin;
+    }
+
+    private void grow(int minCapacity) {
+        int newCapacity = Math.max(minCapacity, capacity * 2);
+        for (Map.Entry<String, int[]> entry : columns.entrySet()) {
+            int[] grown = Arrays.copyOf(entry.getValue(), newCapacity);
+            Arrays.fill(grown, capacity, newCapacity, MISSING);
+            entry.setValue(grown);
+        }
+        capacity = newCapacity;
+    }
+
+    private static int[] emptyColumn(int length) {
+        int[] column = new int[length];
+        Arrays.fill(column, MISSING);
+        return column;
+    }
+}
@@ -2,46 +2,58 @@ package com.example.backend.service;
 
 import com.example.backend.dto.HoldingDto;
 import com.example.backend.dto.PortfolioResponse;
-import com.example.backend.model.PortfolioHistory;
+import com.example.backend.dto.PortfolioTickDto;
+import com.example.backend.dto.ValuationStatus;
 import com.example.backend.model.PortfolioHolding;
-import com.example.backend.repository.PortfolioHistoryRepository;
 import com.example.backend.repository.PortfolioHoldingRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class PortfolioService {
     private final PortfolioHoldingRepository holdingRepository;
-    private final PortfolioHistoryRepository historyRepository;
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM-dd");
+    private final PortfolioHistoryPivot historyPivot;
+    private final PortfolioTickStore tickStore;
+    private final PortfolioValuationEngine valuationEngine;
+    private static final int MIN_POINTS = 3;
+    private static final int MAX_RAW_TICKS = 10_000;
+    // 1m/1h 汇总时区间最多覆盖的桶数，1m 约 7 天；每个桶每个币种输出一行
+    private static final int MAX_TICK_BUCKETS = 10_000;
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final DateTimeFormatter TICK_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int MAX_POINTS = 5000;
+    // GET /api/portfolio 未指定 maxPoints 时的历史点数上限，避免历史增长后响应无限变大
+    private static final int DEFAULT_MAX_POINTS = 1000;
 
     public PortfolioResponse getPortfolio() {
-        List<HoldingDto> holdings = holdingRepository.findAll(Sort.by("coin")).stream()
-                .map(this::toDto)
-                .toList();
+        return getPortfolio(null, null, null);
+    }
 
-        List<PortfolioHistory> history = historyRepository.findAll(Sort.by("snapDate").ascending());
-        Map<String, Map<String, Object>> grouped = new LinkedHashMap<>();
-        history.forEach(item -> {
-            String key = item.getSnapDate().format(DATE_FORMATTER);
-            Map<String, Object> record = grouped.computeIfAbsent(key, k -> {
-                Map<String, Object> map = new LinkedHashMap<>();
-                map.put("date", k);
-                return map;
-            });
-            record.put(item.getCoin(), item.getPercentage());
-        });
+    /**
+     * from/to 限定历史的日期区间（含两端），maxPoints 限定历史点数（默认 DEFAULT_MAX_POINTS），超出时按币种做 LTTB 降采样
+     */
+    public PortfolioResponse getPortfolio(LocalDate from, LocalDate to, Integer maxPoints) {
+        List<HoldingDto> holdings = getHoldings(PortfolioHolding.DEFAULT_PORTFOLIO_ID);
 
-        List<Map<String, Object>> historyList = grouped.values().stream().collect(Collectors.toList());
+        // 历史占比直接取内存透视表，日期为 yyyy-MM-dd，跨年不会冲突
+        List<Map<String, Object>> historyList = getHistory(from, to, maxPoints != null ? maxPoints : DEFAULT_MAX_POINTS);
 
         return PortfolioResponse.builder()
                 .holdings(holdings)
@@ -49,6 +61,140 @@ public class PortfolioService {
                 .build();
     }
 
+    /**
+     * 指定组合的当前持仓，按币种排序
+     */
+    public List<HoldingDto> getHoldings(long portfolioId) {
+        return holdingRepository.findByPortfolioId(portfolioId, Sort.by("coin")).stream()
+                .map(this::toDto)
+                .toList();
+    }
+
+    public ValuationStatus getValuationStatus() {
+        return valuationEngine.status();
+    }
+
+    public List<Map<String, Object>> getHistory(LocalDate from, LocalDate to, Integer maxPoints) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        if (maxPoints != null && (maxPoints < MIN_POINTS || maxPoints > MAX_POINTS)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "maxPoints must be between " + MIN_POINTS + " and " + MAX_POINTS);
+        }
+        return historyPivot.history(from, to, maxPoints);
+    }
+
+    /**
+     * 盘中 tick：interval=raw 返回原始采样（最多 MAX_RAW_TICKS 条），1m/1h 按分钟/小时汇总为 开高低收 价格与最后占比，
+     * 汇总区间最多 MAX_TICK_BUCKETS 个桶
+     */
+    public List<PortfolioTickDto> getTicks(String coin, LocalDateTime from, LocalDateTime to, String interval) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(1);
+        if (!start.isBefore(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be earlier than to");
+        }
+        if (!tickStore.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "tick store is disabled");
+        }
+        String coinFilter = StringUtils.hasText(coin) && !"all".equalsIgnoreCase(coin)
+                ? coin.trim().toUpperCase(Locale.ROOT) : null;
+        long fromMillis = start.atZone(ZONE).toInstant().toEpochMilli();
+        long toMillis = end.atZone(ZONE).toInstant().toEpochMilli();
+
+        long bucketMillis = switch (interval == null ? "raw" : interval.toLowerCase(Locale.ROOT)) {
+            case "raw" -> 0;
+            case "1m" -> 60_000L;
+            case "1h" -> 3_600_000L;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "interval must be raw, 1m or 1h");
+        };
+        if (bucketMillis > 0 && (toMillis - fromMillis) / bucketMillis > MAX_TICK_BUCKETS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "time range too large, at most " + MAX_TICK_BUCKETS + " buckets of " + interval);
+        }
+        List<PortfolioTickDto> result = new ArrayList<>();
+        if (bucketMillis == 0) {
+            tickStore.scan(coinFilter, fromMillis, toMillis, (timestamp, tickCoin, price, allocation) -> {
+                result.add(PortfolioTickDto.builder()
+                        .time(formatTick(timestamp))
+                        .coin(tickCoin)
+                        .close(finite(price))
+                        .allocation(finite(allocation))
+                        .build());
+                return result.size() < MAX_RAW_TICKS;
+            });
+            return result;
+        }
+
+        // tick 按时间顺序到达，每个币种维护当前桶，桶切换时输出
+        Map<String, TickBucket> open = new HashMap<>();
+        tickStore.scan(coinFilter, fromMillis, toMillis, (timestamp, tickCoin, price, allocation) -> {
+            long bucketStart = Math.floorDiv(timestamp, bucketMillis) * bucketMillis;
+            TickBucket bucket = open.get(tickCoin);
+            if (bucket == null || bucket.start != bucketStart) {
+                if (bucket != null) {
+                    result.add(bucket.toDto(tickCoin));
+                }
+                bucket = new TickBucket(bucketStart);
+                open.put(tickCoin, bucket);
+            }
+            bucket.add(price, allocation);
+            return true;
+        });
+        open.forEach((tickCoin, bucket) -> result.add(bucket.toDto(tickCoin)));
+        result.sort(Comparator.comparing(PortfolioTickDto::getTime).thenComparing(PortfolioTickDto::getCoin));
+        return result;
+    }
+
+    private static String formatTick(long timestamp) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZONE).format(TICK_FORMATTER);
+    }
+
+    private static Double finite(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static final class TickBucket {
+        private final long start;
+        private double open = Double.NaN;
+        private double high = Double.NaN;
+        private double low = Double.NaN;
+        private double close = Double.NaN;
+        private double allocation = Double.NaN;
+        private int samples;
+
+        TickBucket(long start) {
+            this.start = start;
+        }
+
+        void add(double price, double tickAllocation) {
+            if (!Double.isNaN(price)) {
+                if (Double.isNaN(open)) {
+                    open = price;
+                }
+                high = Double.isNaN(high) ? price : Math.max(high, price);
+                low = Double.isNaN(low) ? price : Math.min(low, price);
+                close = price;
+            }
+            allocation = tickAllocation;
+            samples++;
+        }
+
+        PortfolioTickDto toDto(String coin) {
+            return PortfolioTickDto.builder()
+                    .time(formatTick(start))
+                    .coin(coin)
+                    .open(finite(open))
+                    .high(finite(high))
+                    .low(finite(low))
+                    .close(finite(close))
+                    .allocation(finite(allocation))
+                    .samples(samples)
+                    .build();
+        }
+    }
+
     private HoldingDto toDto(PortfolioHolding holding) {
         return HoldingDto.builder()
                 .coin(holding.getCoin())
@@ -0,0 +1,384 @@
+package com.example.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * 盘中价格与持仓占比的 tick 存储：每天一个内存映射的段文件，只追加定长记录，不写 MySQL。
+ * 记录格式（40 字节）：时间戳(ms) | 价格 | 占比 | 币种（12 字节 ASCII）| CRC32；CRC 覆盖前 36 字节且最后写入，作为提交标记。
+ * 追加时把时间戳钳制为不早于上一条（系统时钟回拨时沿用上一条的时间），段内时间单调不减，查询可二分定位。
+ * 打开段文件时顺序校验记录，遇到时间戳为 0、CRC 不符或时间倒退即视为写入中断：正在追加的当天段从该位置截断后继续追加，
+ * 查询打开的历史段只读映射文件现有长度，只使用中断位置之前的记录，不修改文件
+ */
+@Component
+@Slf4j
+public class PortfolioTickStore {
+    static final int RECORD_BYTES = 40;
+    private static final int HEADER_BYTES = 16;
+    private static final long MAGIC = 0x5449434b53303031L; // "TICKS001"
+    private static final int COIN_BYTES = 12;
+    private static final int CRC_OFFSET = 36;
+    private static final int INITIAL_RECORDS = 1 << 16;
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int retainDays;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Map<LocalDate, Segment> segments = new ConcurrentHashMap<>();
+    private volatile Segment current;
+    private long lastTimestamp;
+
+    public PortfolioTickStore(@Value("${portfolio.ticks.enabled:true}") boolean enabled,
+                              @Value("${portfolio.ticks.dir:./data/ticks}") String directory,
+                              @Value("${portfolio.ticks.retain-days:30}") int retainDays) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.retainDays = retainDays;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        current = segment(LocalDate.now(zone), true);
+        lastTimestamp = current.lastTimestamp();
+        purgeExpired();
+    }
+
+    @PreDestroy
+    public void close() {
+        segments.values().forEach(Segment::close);
+        segments.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 追加一条 tick；同一时刻只有估值线程写入，调用方负责串行。时间早于上一条时按上一条的时间写入
+     */
+    public void append(long timestamp, String coin, double price, double allocation) {
+        if (!enabled) {
+            return;
+        }
+        if (timestamp < lastTimestamp) {
+            timestamp = lastTimestamp;
+        }
+        lastTimestamp = timestamp;
+        LocalDate day = Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+        Segment segment = current;
+        if (segment == null || !segment.day.equals(day)) {
+            // 跨天切换到新段，旧段落盘后仍保留映射供查询
+            if (segment != null) {
+                segment.force();
+            }
+            segment = segment(day, true);
+            current = segment;
+            purgeExpired();
+        }
+        segment.append(timestamp, coin, price, allocation);
+    }
+
+    /**
+     * 把本次估值写入的 tick 刷到磁盘
+     */
+    public void flush() {
+        Segment segment = current;
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    /**
+     * 按时间顺序扫描 [fromMillis, toMillis) 内某币种的 tick；coin 为空表示全部币种
+     */
+    public void scan(String coin, long fromMillis, long toMillis, TickVisitor visitor) {
+        if (!enabled || fromMillis >= toMillis) {
+            return;
+        }
+        byte[] coinKey = coin != null ? encodeCoin(coin) : null;
+        LocalDate day = Instant.ofEpochMilli(fromMillis).atZone(zone).toLocalDate();
+        LocalDate lastDay = Instant.ofEpochMilli(toMillis - 1).atZone(zone).toLocalDate();
+        for (; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            Segment segment = segment(day, false);
+            if (segment != null && !segment.scan(coinKey, fromMillis, toMillis, visitor)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * writable 为 true 时打开（必要时创建）用于追加的段；否则只读打开已存在的段，文件不存在时返回 null。
+     * 之前被查询只读打开的段需要追加时换成可写映射，旧的只读映射仍可供正在进行的查询读取
+     */
+    private Segment segment(LocalDate day, boolean writable) {
+        Segment segment = segments.get(day);
+        if (segment != null && (segment.writable || !writable)) {
+            return segment;
+        }
+        Path file = directory.resolve("ticks-" + day.format(FILE_DATE) + ".dat");
+        if (!writable && !Files.exists(file)) {
+            return null;
+        }
+        synchronized (segments) {
+            segment = segments.get(day);
+            if (segment == null || (writable && !segment.writable)) {
+                Segment previous = segment;
+                try {
+                    segment = new Segment(day, file, writable);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Failed to open tick segment " + file, ex);
+                }
+                segments.put(day, segment);
+                if (previous != null) {
+                    previous.close();
+                }
+            }
+            return segment;
+        }
+    }
+
+    private void purgeExpired() {
+        LocalDate oldest = LocalDate.now(zone).minusDays(retainDays);
+        segments.keySet().removeIf(day -> {
+            if (day.isBefore(oldest)) {
+                segments.get(day).close();
+                return true;
+            }
+            return false;
+        });
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "ticks-*.dat")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                LocalDate day = LocalDate.parse(name.substring(6, 14), FILE_DATE);
+                if (day.isBefore(oldest)) {
+                    Files.deleteIfExists(file);
+                    log.info("Deleted expired tick segment {}", file);
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Failed to purge expired tick segments in {}", directory, ex);
+        }
+    }
+
+    private static byte[] encodeCoin(String coin) {
+        byte[] key = new byte[COIN_BYTES];
+        byte[] bytes = coin.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, key, 0, Math.min(bytes.length, COIN_BYTES));
+        return key;
+    }
+
+    private static int crc(ByteBuffer buffer, int offset) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, CRC_OFFSET));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * 返回 false 时停止扫描
+     */
+    @FunctionalInterface
+    public interface TickVisitor {
+        boolean accept(long timestamp, String coin, double price, double allocation);
+    }
+
+    /**
+     * 一天的段文件。写入只发生在估值线程；读取按已发布的记录数访问，不加锁。
+     * 只读段按文件现有长度映射，不扩容也不截断
+     */
+    private static final class Segment {
+        private final LocalDate day;
+        private final Path file;
+        private final boolean writable;
+        private final FileChannel channel;
+        private volatile MappedByteBuffer buffer;
+        private volatile int count;
+        private int capacity;
+
+        Segment(LocalDate day, Path file, boolean writable) throws IOException {
+            this.day = day;
+            this.file = file;
+            this.writable = writable;
+            if (!writable) {
+                this.channel = FileChannel.open(file, StandardOpenOption.READ);
+                long records = Math.max(0, (channel.size() - HEADER_BYTES) / RECORD_BYTES);
+                capacity = (int) records;
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(),
+                        HEADER_BYTES + records * RECORD_BYTES));
+                if (channel.size() >= HEADER_BYTES && buffer.getLong(0) != 0) {
+                    checkHeader();
+                }
+                count = validRecords();
+                return;
+            }
+            this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE);
+            long records = Math.max(INITIAL_RECORDS, (channel.size() - HEADER_BYTES) / RECORD_BYTES);
+            map((int) records);
+            if (buffer.getLong(0) == 0) {
+                buffer.putLong(0, MAGIC);
+                buffer.putInt(8, RECORD_BYTES);
+            } else {
+                checkHeader();
+            }
+            recover();
+        }
+
+        private void checkHeader() throws IOException {
+            if (buffer.getLong(0) != MAGIC || buffer.getInt(8) != RECORD_BYTES) {
+                throw new IOException("Unrecognized tick segment format: " + file);
+            }
+        }
+
+        private void map(int records) throws IOException {
+            capacity = records;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) records * RECORD_BYTES);
+        }
+
+        // 顺序校验记录，第一条无效记录处即为上次写入中断的位置
+        private int validRecords() {
+            MappedByteBuffer data = buffer;
+            long previous = 0;
+            int valid = 0;
+            while (valid < capacity) {
+                int offset = HEADER_BYTES + valid * RECORD_BYTES;
+                long timestamp = data.getLong(offset);
+                if (timestamp == 0 || timestamp < previous || data.getInt(offset + CRC_OFFSET) != crc(data, offset)) {
+                    break;
+                }
+                previous = timestamp;
+                valid++;
+            }
+            return valid;
+        }
+
+        // 中断位置之后的内容清零，之后的追加从该位置覆盖
+        private void recover() {
+            MappedByteBuffer data = buffer;
+            int valid = validRecords();
+            int dirtyEnd = valid;
+            while (dirtyEnd < capacity && data.getLong(HEADER_BYTES + dirtyEnd * RECORD_BYTES) != 0) {
+                dirtyEnd++;
+            }
+            if (dirtyEnd > valid) {
+                log.warn("Tick segment {} truncated from {} to {} records after an interrupted write",
+                        file, dirtyEnd, valid);
+                for (int i = valid; i <= Math.min(dirtyEnd, capacity - 1); i++) {
+                    data.put(HEADER_BYTES + i * RECORD_BYTES, new byte[RECORD_BYTES]);
+                }
+                data.force();
+            }
+            count = valid;
+        }
+
+        void append(long timestamp, String coin, double price, double allocation) {
+            if (count == capacity) {
+                try {
+                    map(capacity * 2);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Failed to grow tick segment " + file, ex);
+                }
+            }
+            MappedByteBuffer data = buffer;
+            int offset = HEADER_BYTES + count * RECORD_BYTES;
+            data.putDouble(offset + 8, price);
+            data.putDouble(offset + 16, allocation);
+            data.put(offset + 24, encodeCoin(coin));
+            data.putLong(offset, timestamp);
+            data.putInt(offset + CRC_OFFSET, crc(data, offset));
+            count++;
+        }
+
+        long lastTimestamp() {
+            return count == 0 ? 0 : buffer.getLong(HEADER_BYTES + (count - 1) * RECORD_BYTES);
+        }
+
+        boolean scan(byte[] coinKey, long fromMillis, long toMillis, TickVisitor visitor) {
+            // 先读 count 再读 buffer：扩容时先换映射再发布记录数，这样读到的映射一定覆盖已发布的记录
+            int published = count;
+            MappedByteBuffer data = buffer;
+            int index = firstAtOrAfter(data, published, fromMillis);
+            byte[] coin = new byte[COIN_BYTES];
+            for (; index < published; index++) {
+                int offset = HEADER_BYTES + index * RECORD_BYTES;
+                long timestamp = data.getLong(offset);
+                if (timestamp >= toMillis) {
+                    break;
+                }
+                data.get(offset + 24, coin);
+                if (coinKey != null && !Arrays.equals(coin, coinKey)) {
+                    continue;
+                }
+                if (!visitor.accept(timestamp, decodeCoin(coin), data.getDouble(offset + 8), data.getDouble(offset + 16))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // 记录按时间追加，二分查找起点
+        private static int firstAtOrAfter(MappedByteBuffer data, int published, long timestamp) {
+            int low = 0;
+            int high = published;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (data.getLong(HEADER_BYTES + mid * RECORD_BYTES) < timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static String decodeCoin(byte[] coin) {
+            int length = 0;
+            while (length < coin.length && coin[length] != 0) {
+                length++;
+            }
+            return new String(coin, 0, length, StandardCharsets.US_ASCII);
+        }
+
+        void force() {
+            if (writable) {
+                buffer.force();
+            }
+        }
+
+        void close() {
+            try {
+                force();
+                channel.close();
+            } catch (IOException ex) {
+                log.warn("Failed to close tick segment {}", file, ex);
+            }
+        }
+    }
+}
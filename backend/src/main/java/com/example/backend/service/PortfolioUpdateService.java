@@ -2,163 +2,158 @@ package com.example.backend.service;
 
 import com.example.backend.model.PortfolioHolding;
 import com.example.backend.model.PortfolioHistory;
-import com.example.backend.repository.PortfolioHoldingRepository;
 import com.example.backend.repository.PortfolioHistoryRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.backend.service.PortfolioValuationEngine.ValuationRun;
+import com.example.backend.service.PortfolioValuationEngine.ValuedHolding;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+/**
+ * 持仓估值：取一次价格快照，交给 PortfolioValuationEngine 对所有组合计算市值与占比，
+ * 只有市值或占比变化超过阈值的持仓才写库，高频定时估值时价格不动就不产生写入；
+ * 默认组合的结果再追加盘中 tick，并同步当天的历史记录
+ */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class PortfolioUpdateService {
 
     private final ExchangeRateService exchangeRateService;
-    private final PortfolioHoldingRepository portfolioHoldingRepository;
+    private final PortfolioValuationEngine valuationEngine;
     private final PortfolioHistoryRepository portfolioHistoryRepository;
-
-    // CoinGecko ID与币种的映射
-    private static final Map<String, String> COIN_GECKO_ID_MAP = Map.of(
-            "BTC", "bitcoin",
-            "ETH", "ethereum",
-            "SOL", "solana",
-            "USDT", "tether"
-    );
+    private final PortfolioHistoryPivot historyPivot;
+    private final PortfolioTickStore tickStore;
+    // 阈值换算为分 / 0.01 个百分点
+    private final long valueEpsilon;
+    private final long percentageEpsilon;
+
+    // 当天的历史记录（币种 -> 记录），跨天时重新加载
+    private LocalDate historyDate;
+    private final Map<String, PortfolioHistory> todayHistory = new HashMap<>();
+
+    public PortfolioUpdateService(ExchangeRateService exchangeRateService,
+                                  PortfolioValuationEngine valuationEngine,
+                                  PortfolioHistoryRepository portfolioHistoryRepository,
+                                  PortfolioHistoryPivot historyPivot,
+                                  PortfolioTickStore tickStore,
+                                  @Value("${portfolio.valuation.value-epsilon:0.01}") double valueEpsilon,
+                                  @Value("${portfolio.valuation.percentage-epsilon:0.01}") double percentageEpsilon) {
+        this.exchangeRateService = exchangeRateService;
+        this.valuationEngine = valuationEngine;
+        this.portfolioHistoryRepository = portfolioHistoryRepository;
+        this.historyPivot = historyPivot;
+        this.tickStore = tickStore;
+        this.valueEpsilon = FixedPoint.money(BigDecimal.valueOf(valueEpsilon));
+        this.percentageEpsilon = FixedPoint.percentage(BigDecimal.valueOf(percentageEpsilon));
+    }
 
     // 更新所有持仓的实时市值和占比
     public void updatePortfolioValues() {
+        updatePortfolioValues(true);
+    }
+
+    /**
+     * 手动触发与定时估值可能并发，串行执行；定时估值不接受内置默认价格，避免行情不可用时用假价格覆盖持仓市值
+     */
+    public synchronized void updatePortfolioValues(boolean allowDefaultPrices) {
         try {
-            // 获取最新汇率数据
-            Map<String, Map<String, Object>> exchangeRates = (Map<String, Map<String, Object>>) (Map<?, ?>) exchangeRateService.getExchangeRates();
-            if (exchangeRates == null || exchangeRates.isEmpty()) {
+            // 获取最新价格快照
+            PriceSnapshot prices = exchangeRateService.getPriceSnapshot();
+            if (prices.isEmpty()) {
                 log.error("No exchange rates available");
                 return;
             }
-
-            // 获取所有持仓数据
-            List<PortfolioHolding> holdings = portfolioHoldingRepository.findAll();
-            if (holdings.isEmpty()) {
-                log.error("No portfolio holdings found");
+            if (!allowDefaultPrices && prices.source() == PriceSnapshot.Source.DEFAULT) {
+                log.debug("Skipping scheduled valuation, no live prices fetched yet");
                 return;
             }
 
-            // 计算总实时市值
-            BigDecimal totalRealTimeValue = BigDecimal.ZERO;
-            for (PortfolioHolding holding : holdings) {
-                BigDecimal realTimeValue = calculateRealTimeValue(holding, exchangeRates);
-                totalRealTimeValue = totalRealTimeValue.add(realTimeValue);
-            }
-
-            // 更新每个持仓的实时市值和占比
-            for (PortfolioHolding holding : holdings) {
-                BigDecimal realTimeValue = calculateRealTimeValue(holding, exchangeRates);
-                BigDecimal realTimePercentage = calculateRealTimePercentage(realTimeValue, totalRealTimeValue);
-
-                // 更新持仓数据
-                holding.setValueUsd(realTimeValue.setScale(2, RoundingMode.HALF_UP));
-                holding.setPercentage(realTimePercentage.setScale(2, RoundingMode.HALF_UP));
-                holding.setUpdatedAt(LocalDateTime.now());
-            }
-
-            // 保存更新后的数据到数据库
-            portfolioHoldingRepository.saveAll(holdings);
-            log.info("Successfully updated portfolio real-time values");
-            
-            // 写入历史记录到portfolio_history表
-            LocalDate today = LocalDate.now();
-            List<PortfolioHistory> existingHistory = portfolioHistoryRepository.findBySnapDate(today);
-            
-            List<PortfolioHistory> historyRecords;
-            if (!existingHistory.isEmpty()) {
-                // 如果当天已有记录，则更新现有记录的percentage
-                Map<String, PortfolioHistory> existingMap = existingHistory.stream()
-                        .collect(Collectors.toMap(PortfolioHistory::getCoin, history -> history));
-                
-                historyRecords = holdings.stream()
-                        .map(holding -> {
-                            PortfolioHistory history = existingMap.get(holding.getCoin());
-                            if (history != null) {
-                                // 更新现有记录的percentage
-                                history.setPercentage(holding.getPercentage());
-                                return history;
-                            } else {
-                                // 为没有现有记录的币种创建新记录
-                                return PortfolioHistory.builder()
-                                        .snapDate(today)
-                                        .coin(holding.getCoin())
-                                        .percentage(holding.getPercentage())
-                                        .build();
-                            }
-                        })
-                        .collect(Collectors.toList());
-                
-                log.info("Updating existing portfolio history records for date: {}", today);
-            } else {
-                // 如果当天没有记录，则创建新记录
-                historyRecords = holdings.stream()
-                        .map(holding -> PortfolioHistory.builder()
-                                .snapDate(today)
-                                .coin(holding.getCoin())
-                                .percentage(holding.getPercentage())
-                                .build())
-                        .collect(Collectors.toList());
-                
-                log.info("Creating new portfolio history records for date: {}", today);
+            // 所有组合共用同一个价格快照，由估值引擎并行计算并分批写回变化的持仓
+            ValuationRun run = valuationEngine.run(prices, valueEpsilon, percentageEpsilon);
+            if (run.portfolios() == 0) {
+                log.error("No portfolio holdings found");
+                return;
             }
-            
-            portfolioHistoryRepository.saveAll(historyRecords);
-            log.info("Successfully saved portfolio history records");
 
+            // 盘中 tick 与每日历史只记录默认组合
+            List<ValuedHolding> holdings = run.holdings(PortfolioHolding.DEFAULT_PORTFOLIO_ID);
+            recordTicks(holdings, prices);
+            writeTodayHistory(holdings);
         } catch (Exception e) {
             log.error("Failed to update portfolio values", e);
         }
     }
 
-    // 计算单个持仓的实时市值
-    private BigDecimal calculateRealTimeValue(PortfolioHolding holding, Map<String, Map<String, Object>> exchangeRates) {
-        String coinId = COIN_GECKO_ID_MAP.get(holding.getCoin());
-        if (coinId == null || !exchangeRates.containsKey(coinId)) {
-            log.warn("No exchange rate available for coin: {}", holding.getCoin());
-            return holding.getValueUsd(); // 返回现有值作为备选
+    /**
+     * 每次估值都把各币种的价格与占比追加到 tick 存储，记录盘中变化；写失败不影响估值落库
+     */
+    private void recordTicks(List<ValuedHolding> holdings, PriceSnapshot prices) {
+        if (!tickStore.isEnabled() || holdings.isEmpty()) {
+            return;
         }
-
-        Map<String, Object> coinRates = exchangeRates.get(coinId);
-        if (!coinRates.containsKey("usd")) {
-            log.warn("No USD exchange rate available for coin: {}", holding.getCoin());
-            return holding.getValueUsd(); // 返回现有值作为备选
+        try {
+            long timestamp = System.currentTimeMillis();
+            for (ValuedHolding holding : holdings) {
+                int coin = PriceSnapshot.coinIndex(holding.coin());
+                double price = prices.hasUsd(coin) ? prices.usd(coin) : Double.NaN;
+                tickStore.append(timestamp, holding.coin(), price, holding.percentage() / 100.0);
+            }
+            tickStore.flush();
+        } catch (RuntimeException ex) {
+            log.warn("Failed to record portfolio ticks", ex);
         }
+    }
 
-        // 获取USD汇率，处理可能的Integer或Double类型
-        Object rateObj = coinRates.get("usd");
-        double usdRate;
-        if (rateObj instanceof Integer) {
-            usdRate = ((Integer) rateObj).doubleValue();
-        } else if (rateObj instanceof Double) {
-            usdRate = (Double) rateObj;
-        } else {
-            log.warn("Unexpected rate type for coin {}: {}", holding.getCoin(), rateObj.getClass().getName());
-            return holding.getValueUsd(); // 返回现有值作为备选
+    /**
+     * 当天历史记录的占比与持仓占比保持一致，同样只写入缺失或变化超过阈值的记录
+     */
+    private void writeTodayHistory(List<ValuedHolding> holdings) {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(historyDate)) {
+            todayHistory.clear();
+            portfolioHistoryRepository.findBySnapDate(today)
+                    .forEach(history -> todayHistory.put(history.getCoin(), history));
+            historyDate = today;
         }
 
-        // 计算实时市值：数量 * USD汇率
-        BigDecimal amount = holding.getAmount();
-        return amount.multiply(BigDecimal.valueOf(usdRate));
+        List<PortfolioHistory> dirtyHistory = new ArrayList<>();
+        for (ValuedHolding holding : holdings) {
+            PortfolioHistory history = todayHistory.get(holding.coin());
+            if (history == null) {
+                // 为没有当天记录的币种创建新记录
+                dirtyHistory.add(PortfolioHistory.builder()
+                        .snapDate(today)
+                        .coin(holding.coin())
+                        .percentage(FixedPoint.toPercentage(holding.percentage()))
+                        .build());
+            } else if (percentageExceeds(history.getPercentage(), holding.percentage(), percentageEpsilon)) {
+                history.setPercentage(FixedPoint.toPercentage(holding.percentage()));
+                dirtyHistory.add(history);
+            }
+        }
+        if (dirtyHistory.isEmpty()) {
+            return;
+        }
+        try {
+            List<PortfolioHistory> saved = portfolioHistoryRepository.saveAll(dirtyHistory);
+            saved.forEach(history -> todayHistory.put(history.getCoin(), history));
+            historyPivot.put(saved);
+        } catch (RuntimeException ex) {
+            // 缓存中的记录可能已被修改，下次重新加载
+            historyDate = null;
+            throw ex;
+        }
+        log.info("Saved {} portfolio history records for date: {}", dirtyHistory.size(), today);
     }
 
-    // 计算单个持仓的实时占比
-    private BigDecimal calculateRealTimePercentage(BigDecimal realTimeValue, BigDecimal totalRealTimeValue) {
-        if (totalRealTimeValue.compareTo(BigDecimal.ZERO) == 0) {
-            return BigDecimal.ZERO;
-        }
-        // 计算占比：(实时市值 / 总实时市值) * 100
-        return realTimeValue.divide(totalRealTimeValue, 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100));
+    private static boolean percentageExceeds(BigDecimal previous, long current, long epsilon) {
+        return previous == null || Math.abs(FixedPoint.percentage(previous) - current) >= epsilon;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,543 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.ValuationStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 多组合批量估值：所有组合的持仓以列数组常驻内存，按组合区间拆成 fork-join 任务，
+ * 在多核上用同一个价格快照计算市值与占比（FixedPoint 定点运算，数量 × 价格 精确相乘，超出 long 时该组合改用 BigDecimal），
+ * 再把变化超过阈值的持仓分批写回，每批一个事务。
+ * 计算过程不创建实体对象，组合之间互不依赖，空闲线程通过工作窃取分担剩余区间。
+ * 列数组只在首次估值和每隔 full-reload-ms 时流式全量读取；其间只重新读取被标记为过期的组合：
+ * 应用内修改持仓数量后调用 invalidate，写回时影响 0 行（数量已被并发修改）的组合也会被标记
+ */
+@Service
+@Slf4j
+public class PortfolioValuationEngine {
+    private static final long MISSING = Long.MIN_VALUE;
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+    private static final String HOLDING_COLUMNS = "SELECT id, portfolio_id, coin, amount, value_usd, percentage"
+            + " FROM portfolio";
+    private static final String SELECT_HOLDINGS = HOLDING_COLUMNS + " ORDER BY portfolio_id, coin";
+    private static final String SELECT_PORTFOLIOS = HOLDING_COLUMNS
+            + " WHERE portfolio_id IN (:portfolioIds) ORDER BY portfolio_id, coin";
+    private static final int RELOAD_CHUNK = 1000;
+    // amount 作为条件：估值期间持仓数量被审批等流程修改时跳过该行，由下一轮按新数量重新估值
+    private static final String UPDATE_HOLDING = "UPDATE portfolio SET value_usd = ?, percentage = ?, updated_at = ?"
+            + " WHERE id = ? AND amount = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool pool;
+    private final int chunkPortfolios;
+    private final int writeBatchSize;
+    private final long fullReloadNanos;
+    private final Set<Long> stalePortfolios = ConcurrentHashMap.newKeySet();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong totalPortfolios = new AtomicLong();
+    private volatile ValuationStatus lastRun;
+    // 只在 run 内读写，由调用方串行
+    private HoldingTable current;
+    private long fullyLoadedAt;
+
+    public PortfolioValuationEngine(JdbcTemplate jdbcTemplate,
+                                    DataSource dataSource,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${portfolio.valuation.parallelism:0}") int parallelism,
+                                    @Value("${portfolio.valuation.chunk-portfolios:256}") int chunkPortfolios,
+                                    @Value("${portfolio.valuation.write-batch-size:1000}") int writeBatchSize,
+                                    @Value("${portfolio.valuation.full-reload-ms:300000}") long fullReloadMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        // 读持仓用单独的 JdbcTemplate：fetchSize 为 Integer.MIN_VALUE 时 MySQL 驱动逐行返回，不在驱动内缓存整个结果集
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.transactionTemplate = transactionTemplate;
+        this.chunkPortfolios = Math.max(1, chunkPortfolios);
+        this.writeBatchSize = Math.max(1, writeBatchSize);
+        this.fullReloadNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, fullReloadMillis));
+        AtomicInteger sequence = new AtomicInteger();
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                forkJoinPool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                    thread.setName("portfolio-valuation-" + sequence.incrementAndGet());
+                    return thread;
+                }, null, false);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 估值所有组合并写回变化的持仓；epsilon 单位为分 / 0.01 个百分点。调用方负责串行
+     */
+    public ValuationRun run(PriceSnapshot prices, long valueEpsilon, long percentageEpsilon) {
+        long started = System.nanoTime();
+        int loadedHoldings;
+        try {
+            loadedHoldings = load(started);
+        } catch (RuntimeException ex) {
+            // 已取出的过期组合可能没有重新读取，下一轮改为全量读取
+            current = null;
+            throw ex;
+        }
+        HoldingTable table = current;
+        long loaded = System.nanoTime();
+        LongAdder missingPrices = new LongAdder();
+        if (table.portfolioCount > 0) {
+            pool.invoke(new ValuationTask(table, prices, valueEpsilon, percentageEpsilon, missingPrices,
+                    0, table.portfolioCount));
+        }
+        long computed = System.nanoTime();
+        int written = write(table);
+        long finished = System.nanoTime();
+
+        if (missingPrices.sum() > 0) {
+            log.warn("{} holdings have no USD exchange rate, kept their previous values", missingPrices.sum());
+        }
+        runs.incrementAndGet();
+        totalPortfolios.addAndGet(table.portfolioCount);
+        lastRun = ValuationStatus.builder()
+                .parallelism(pool.getParallelism())
+                .lastRunAt(LocalDateTime.now())
+                .portfolios(table.portfolioCount)
+                .holdings(table.size)
+                .loadedHoldings(loadedHoldings)
+                .writtenHoldings(written)
+                .loadMillis(TimeUnit.NANOSECONDS.toMillis(loaded - started))
+                .computeMillis(TimeUnit.NANOSECONDS.toMillis(computed - loaded))
+                .writeMillis(TimeUnit.NANOSECONDS.toMillis(finished - computed))
+                .computePortfoliosPerSecond(perSecond(table.portfolioCount, computed - loaded))
+                .portfoliosPerSecond(perSecond(table.portfolioCount, finished - started))
+                .build();
+        if (written > 0) {
+            log.info("Valued {} portfolios ({} holdings) at {} portfolios/s, wrote {} changed holdings",
+                    table.portfolioCount, table.size, Math.round(lastRun.getPortfoliosPerSecond()), written);
+        }
+        return new ValuationRun(table, written);
+    }
+
+    public ValuationStatus status() {
+        ValuationStatus last = lastRun;
+        ValuationStatus.ValuationStatusBuilder status = last != null
+                ? last.toBuilder()
+                : ValuationStatus.builder().parallelism(pool.getParallelism());
+        return status
+                .runs(runs.get())
+                .totalPortfolios(totalPortfolios.get())
+                .build();
+    }
+
+    /**
+     * 组合的持仓数量在应用内被修改后调用：当前事务结束（提交或回滚）后标记该组合过期，下一轮估值前重新读取；无事务时立即标记
+     */
+    public void invalidate(long portfolioId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    stalePortfolios.add(portfolioId);
+                }
+            });
+        } else {
+            stalePortfolios.add(portfolioId);
+        }
+    }
+
+    /**
+     * 首次、距上次全量读取超过 full-reload-ms 或过期组合的行数有增减时全量读取，否则只重新读取过期组合；返回读取的持仓数
+     */
+    private int load(long now) {
+        List<Long> stale = new ArrayList<>();
+        for (Iterator<Long> iterator = stalePortfolios.iterator(); iterator.hasNext(); ) {
+            stale.add(iterator.next());
+            iterator.remove();
+        }
+        if (current != null && now - fullyLoadedAt < fullReloadNanos) {
+            if (stale.isEmpty()) {
+                return 0;
+            }
+            HoldingTable reloaded = loadPortfolios(stale);
+            if (current.replace(stale, reloaded)) {
+                return reloaded.size;
+            }
+        }
+        HoldingTable full = new HoldingTable();
+        streamingJdbcTemplate.query(SELECT_HOLDINGS, (RowCallbackHandler) rs -> addRow(full, rs));
+        full.finish();
+        current = full;
+        fullyLoadedAt = now;
+        return full.size;
+    }
+
+    private HoldingTable loadPortfolios(List<Long> portfolioIds) {
+        List<Long> sorted = portfolioIds.stream().sorted().toList();
+        HoldingTable reloaded = new HoldingTable();
+        for (int from = 0; from < sorted.size(); from += RELOAD_CHUNK) {
+            List<Long> chunk = sorted.subList(from, Math.min(sorted.size(), from + RELOAD_CHUNK));
+            namedJdbcTemplate.query(SELECT_PORTFOLIOS, new MapSqlParameterSource("portfolioIds", chunk),
+                    (RowCallbackHandler) rs -> addRow(reloaded, rs));
+        }
+        reloaded.finish();
+        return reloaded;
+    }
+
+    private static void addRow(HoldingTable table, ResultSet rs) throws SQLException {
+        table.add(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getBigDecimal(4), rs.getBigDecimal(5),
+                rs.getBigDecimal(6));
+    }
+
+    private int write(HoldingTable table) {
+        LocalDateTime now = LocalDateTime.now();
+        int written = 0;
+        List<Object[]> batch = new ArrayList<>();
+        int[] rows = new int[writeBatchSize];
+        for (int row = 0; row < table.size; row++) {
+            if (!table.dirty[row]) {
+                continue;
+            }
+            rows[batch.size()] = row;
+            batch.add(new Object[]{FixedPoint.toMoney(table.values[row]),
+                    FixedPoint.toPercentage(table.percentages[row]), now, table.ids[row], table.amounts[row]});
+            if (batch.size() == writeBatchSize) {
+                written += flush(table, batch, rows);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            written += flush(table, batch, rows);
+        }
+        return written;
+    }
+
+    /**
+     * 返回确认更新的行数。影响 0 行（数量已被并发修改）和 SUCCESS_NO_INFO（-2，无法确认是否写入）的行不计入，
+     * 所在组合标记为过期，下一轮重新读取
+     */
+    private int flush(HoldingTable table, List<Object[]> batch, int[] rows) {
+        int[] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPDATE_HOLDING, batch));
+        int updated = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                table.written(rows[i]);
+                updated++;
+            } else {
+                stalePortfolios.add(table.portfolioIdOf(rows[i]));
+            }
+        }
+        return updated;
+    }
+
+    private static double perSecond(int portfolios, long nanos) {
+        return nanos > 0 ? portfolios * 1_000_000_000.0 / nanos : 0;
+    }
+
+    /**
+     * 一轮估值的结果；单个组合的明细按组合ID二分查找。列数组在下一轮估值时会被更新，结果只在本轮内读取
+     */
+    public static final class ValuationRun {
+        private final HoldingTable table;
+        private final int written;
+
+        private ValuationRun(HoldingTable table, int written) {
+            this.table = table;
+            this.written = written;
+        }
+
+        public int portfolios() {
+            return table.portfolioCount;
+        }
+
+        public int holdings() {
+            return table.size;
+        }
+
+        public int written() {
+            return written;
+        }
+
+        public List<ValuedHolding> holdings(long portfolioId) {
+            int portfolio = Arrays.binarySearch(table.portfolioIds, 0, table.portfolioCount, portfolioId);
+            if (portfolio < 0) {
+                return List.of();
+            }
+            List<ValuedHolding> holdings = new ArrayList<>();
+            for (int row = table.portfolioStart[portfolio]; row < table.portfolioStart[portfolio + 1]; row++) {
+                holdings.add(table.valued(row));
+            }
+            return holdings;
+        }
+    }
+
+    /**
+     * 估值后的持仓：市值单位为分，占比单位为 0.01 个百分点
+     */
+    public record ValuedHolding(String coin, long valueUsd, long percentage) {
+    }
+
+    /**
+     * 把 [from, to) 区间的组合拆半直到不超过 chunkPortfolios 个再顺序计算
+     */
+    private final class ValuationTask extends RecursiveAction {
+        private final HoldingTable table;
+        private final PriceSnapshot prices;
+        private final long valueEpsilon;
+        private final long percentageEpsilon;
+        private final LongAdder missingPrices;
+        private final int from;
+        private final int to;
+
+        ValuationTask(HoldingTable table, PriceSnapshot prices, long valueEpsilon, long percentageEpsilon,
+                      LongAdder missingPrices, int from, int to) {
+            this.table = table;
+            this.prices = prices;
+            this.valueEpsilon = valueEpsilon;
+            this.percentageEpsilon = percentageEpsilon;
+            this.missingPrices = missingPrices;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkPortfolios) {
+                int missing = 0;
+                for (int portfolio = from; portfolio < to; portfolio++) {
+                    missing += table.value(portfolio, prices, valueEpsilon, percentageEpsilon);
+                }
+                if (missing > 0) {
+                    missingPrices.add(missing);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ValuationTask(table, prices, valueEpsilon, percentageEpsilon, missingPrices, from, middle),
+                    new ValuationTask(table, prices, valueEpsilon, percentageEpsilon, missingPrices, middle, to));
+        }
+    }
+
+    /**
+     * 按组合ID排序的持仓列数组；portfolioStart[i] 到 portfolioStart[i + 1] 是第 i 个组合的行。
+     * 各任务只写自己组合区间内的结果，fork-join 的 join 保证结果对调用线程可见。
+     * previousValues / previousPercentages 始终与库中的值一致：重新读取时覆盖，写回成功后更新为本轮结果
+     */
+    static final class HoldingTable {
+        private int size;
+        private long[] ids = new long[1024];
+        private String[] coins = new String[1024];
+        private int[] coinIndexes = new int[1024];
+        private BigDecimal[] amounts = new BigDecimal[1024];
+        private long[] amountFixed = new long[1024];
+        private long[] previousValues = new long[1024];
+        private long[] previousPercentages = new long[1024];
+
+        private int portfolioCount;
+        private long[] portfolioIds = new long[256];
+        private int[] portfolioStart = new int[257];
+
+        private long[] exactValues;
+        private long[] values;
+        private long[] percentages;
+        private boolean[] dirty;
+
+        void add(long id, long portfolioId, String coin, BigDecimal amount, BigDecimal valueUsd, BigDecimal percentage) {
+            if (portfolioCount == 0 || portfolioIds[portfolioCount - 1] != portfolioId) {
+                if (portfolioCount == portfolioIds.length) {
+                    portfolioIds = Arrays.copyOf(portfolioIds, portfolioCount * 2);
+                    portfolioStart = Arrays.copyOf(portfolioStart, portfolioCount * 2 + 1);
+                }
+                portfolioIds[portfolioCount] = portfolioId;
+                portfolioStart[portfolioCount] = size;
+                portfolioCount++;
+            }
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                coins = Arrays.copyOf(coins, capacity);
+                coinIndexes = Arrays.copyOf(coinIndexes, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+                amountFixed = Arrays.copyOf(amountFixed, capacity);
+                previousValues = Arrays.copyOf(previousValues, capacity);
+                previousPercentages = Arrays.copyOf(previousPercentages, capacity);
+            }
+            ids[size] = id;
+            coins[size] = coin;
+            coinIndexes[size] = PriceSnapshot.coinIndex(coin);
+            amounts[size] = amount;
+            amountFixed[size] = amount != null ? FixedPoint.amount(amount) : MISSING;
+            previousValues[size] = valueUsd != null ? FixedPoint.money(valueUsd) : MISSING;
+            previousPercentages[size] = percentage != null ? FixedPoint.percentage(percentage) : MISSING;
+            size++;
+        }
+
+        void finish() {
+            portfolioStart[portfolioCount] = size;
+            exactValues = new long[size];
+            values = new long[size];
+            percentages = new long[size];
+            dirty = new boolean[size];
+        }
+
+        /**
+         * 计算一个组合的市值与占比并标记需要写回的行，返回缺少价格的持仓数；缺价格时沿用原市值参与占比计算。
+         * 市值 = 数量 × 价格 精确相乘后舍入到分，占比用未舍入的市值计算；任一步超出 long 时整个组合改用 BigDecimal
+         */
+        int value(int portfolio, PriceSnapshot prices, long valueEpsilon, long percentageEpsilon) {
+            int start = portfolioStart[portfolio];
+            int end = portfolioStart[portfolio + 1];
+            int missing = start == end || prices.usdScale() < 0
+                    ? valueDecimal(start, end, prices)
+                    : valueFixed(start, end, prices);
+            for (int row = start; row < end; row++) {
+                dirty[row] = amountFixed[row] != MISSING
+                        && (changed(previousValues[row], values[row], valueEpsilon)
+                        || changed(previousPercentages[row], percentages[row], percentageEpsilon));
+            }
+            return missing;
+        }
+
+        private int valueFixed(int start, int end, PriceSnapshot prices) {
+            // 未舍入市值的小数位 = 数量小数位 + 价格小数位
+            int scale = FixedPoint.AMOUNT_SCALE + prices.usdScale();
+            int missing = 0;
+            long total = 0;
+            for (int row = start; row < end; row++) {
+                int coin = coinIndexes[row];
+                long exact;
+                if (amountFixed[row] != MISSING && prices.hasUsd(coin)) {
+                    exact = FixedPoint.exactValue(amountFixed[row], prices.usdFixed(coin));
+                } else {
+                    exact = previousValues[row] != MISSING ? FixedPoint.fromMoney(previousValues[row], scale) : 0;
+                    missing++;
+                }
+                if (exact == FixedPoint.OVERFLOW) {
+                    return valueDecimal(start, end, prices);
+                }
+                try {
+                    total = Math.addExact(total, exact);
+                } catch (ArithmeticException ex) {
+                    return valueDecimal(start, end, prices);
+                }
+                exactValues[row] = exact;
+            }
+            for (int row = start; row < end; row++) {
+                values[row] = FixedPoint.money(exactValues[row], scale);
+                percentages[row] = FixedPoint.percentage(exactValues[row], total);
+            }
+            return missing;
+        }
+
+        /**
+         * 与定点计算相同的语义，直接使用原先的 BigDecimal 表达式
+         */
+        private int valueDecimal(int start, int end, PriceSnapshot prices) {
+            BigDecimal[] exact = new BigDecimal[end - start];
+            BigDecimal total = BigDecimal.ZERO;
+            int missing = 0;
+            for (int row = start; row < end; row++) {
+                int coin = coinIndexes[row];
+                if (amounts[row] != null && prices.hasUsd(coin)) {
+                    exact[row - start] = amounts[row].multiply(prices.usdDecimal(coin));
+                } else {
+                    exact[row - start] = previousValues[row] != MISSING
+                            ? FixedPoint.toMoney(previousValues[row]) : BigDecimal.ZERO;
+                    missing++;
+                }
+                total = total.add(exact[row - start]);
+            }
+            for (int row = start; row < end; row++) {
+                values[row] = FixedPoint.money(exact[row - start]);
+                percentages[row] = total.signum() == 0 ? 0 : FixedPoint.percentage(
+                        exact[row - start].divide(total, 4, RoundingMode.HALF_UP).multiply(HUNDRED));
+            }
+            return missing;
+        }
+
+        /**
+         * 用重新读取的组合覆盖对应行；组合的行数或行ID有变化时返回 false，由调用方改为全量读取
+         */
+        boolean replace(List<Long> portfolioIds, HoldingTable reloaded) {
+            for (long portfolioId : portfolioIds) {
+                int portfolio = Arrays.binarySearch(this.portfolioIds, 0, portfolioCount, portfolioId);
+                int source = Arrays.binarySearch(reloaded.portfolioIds, 0, reloaded.portfolioCount, portfolioId);
+                if (portfolio < 0 && source < 0) {
+                    continue;
+                }
+                if (portfolio < 0 || source < 0) {
+                    return false;
+                }
+                int start = portfolioStart[portfolio];
+                int sourceStart = reloaded.portfolioStart[source];
+                int rows = portfolioStart[portfolio + 1] - start;
+                if (reloaded.portfolioStart[source + 1] - sourceStart != rows) {
+                    return false;
+                }
+                for (int i = 0; i < rows; i++) {
+                    if (ids[start + i] != reloaded.ids[sourceStart + i]) {
+                        return false;
+                    }
+                }
+                System.arraycopy(reloaded.coins, sourceStart, coins, start, rows);
+                System.arraycopy(reloaded.coinIndexes, sourceStart, coinIndexes, start, rows);
+                System.arraycopy(reloaded.amounts, sourceStart, amounts, start, rows);
+                System.arraycopy(reloaded.amountFixed, sourceStart, amountFixed, start, rows);
+                System.arraycopy(reloaded.previousValues, sourceStart, previousValues, start, rows);
+                System.arraycopy(reloaded.previousPercentages, sourceStart, previousPercentages, start, rows);
+            }
+            return true;
+        }
+
+        void written(int row) {
+            previousValues[row] = values[row];
+            previousPercentages[row] = percentages[row];
+        }
+
+        long portfolioIdOf(int row) {
+            int portfolio = Arrays.binarySearch(portfolioStart, 0, portfolioCount, row);
+            // 组合至少有一行，行号不是区间起点时落在前一个起点所在的组合
+            return portfolioIds[portfolio >= 0 ? portfolio : -portfolio - 2];
+        }
+
+        ValuedHolding valued(int row) {
+            return new ValuedHolding(coins[row], values[row], percentages[row]);
+        }
+
+        private static boolean changed(long previous, long current, long epsilon) {
+            return previous == MISSING || Math.abs(previous - current) >= epsilon;
+        }
+    }
+}
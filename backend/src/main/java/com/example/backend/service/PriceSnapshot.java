@@ -0,0 +1,222 @@
+package com.example.backend.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一次抓取得到的不可变价格快照。
+ * 币种在类加载时固定编号为连续的下标，价格与 24h 涨跌幅按下标存放在 double 数组中，缺失值为 NaN；
+ * 快照每次抓取只构建一次，估值、报告审批与行情接口共享同一实例
+ */
+public final class PriceSnapshot {
+    private static final String[] SYMBOLS = {"BTC", "ETH", "SOL", "USDT"};
+    private static final String[] COIN_GECKO_IDS = {"bitcoin", "ethereum", "solana", "tether"};
+    private static final Map<String, Integer> SYMBOL_INDEX = new HashMap<>();
+    private static final Map<String, Integer> COIN_GECKO_INDEX = new HashMap<>();
+
+    static {
+        for (int i = 0; i < SYMBOLS.length; i++) {
+            SYMBOL_INDEX.put(SYMBOLS[i], i);
+            COIN_GECKO_INDEX.put(COIN_GECKO_IDS[i], i);
+        }
+    }
+
+    private final double[] usd;
+    // usd 的十进制原值（与 BigDecimal.valueOf(double) 相同，不舍入）统一放大 usdScale 位后的 long，缺失为 0；
+    // 有价格的小数位超过 FixedPoint.MAX_PRICE_SCALE 或超出 long 范围时 usdScale 为 -1，估值改用 usdDecimal
+    private final long[] usdFixed;
+    private final int usdScale;
+    private final double[] cny;
+    private final double[] usdChange24h;
+    private final double[] cnyChange24h;
+    private final LocalDateTime fetchedAt;
+    private final long fetchedAtMillis;
+    private final Source source;
+    private final Map<String, Map<String, Double>> coinGeckoView;
+
+    private PriceSnapshot(double[] usd, double[] cny, double[] usdChange24h, double[] cnyChange24h,
+                          LocalDateTime fetchedAt, long fetchedAtMillis, Source source) {
+        this.usd = usd;
+        this.usdFixed = new long[usd.length];
+        this.usdScale = fixedScale(usd, usdFixed);
+        this.cny = cny;
+        this.usdChange24h = usdChange24h;
+        this.cnyChange24h = cnyChange24h;
+        this.fetchedAt = fetchedAt;
+        this.fetchedAtMillis = fetchedAtMillis;
+        this.source = source;
+        this.coinGeckoView = buildCoinGeckoView();
+    }
+
+    /**
+     * 解析 CoinGecko simple/price 的响应；上游返回的数字可能是 Integer 或 Double，统一按 Number 读取
+     */
+    public static PriceSnapshot fromCoinGecko(Map<String, ? extends Map<String, ?>> response, LocalDateTime fetchedAt,
+                                              long fetchedAtMillis, Source source) {
+        double[] usd = emptyColumn();
+        double[] cny = emptyColumn();
+        double[] usdChange = emptyColumn();
+        double[] cnyChange = emptyColumn();
+        response.forEach((coinGeckoId, rates) -> {
+            Integer index = COIN_GECKO_INDEX.get(coinGeckoId);
+            if (index == null || rates == null) {
+                return;
+            }
+            usd[index] = number(rates.get("usd"));
+            cny[index] = number(rates.get("cny"));
+            usdChange[index] = number(rates.get("usd_24h_change"));
+            cnyChange[index] = number(rates.get("cny_24h_change"));
+        });
+        return new PriceSnapshot(usd, cny, usdChange, cnyChange, fetchedAt, fetchedAtMillis, source);
+    }
+
+    /**
+     * 币种代码（如 BTC）对应的下标，不在行情范围内时返回 -1
+     */
+    public static int coinIndex(String symbol) {
+        Integer index = symbol != null ? SYMBOL_INDEX.get(symbol) : null;
+        return index != null ? index : -1;
+    }
+
+    public static int coinCount() {
+        return SYMBOLS.length;
+    }
+
+    public static String symbol(int coin) {
+        return SYMBOLS[coin];
+    }
+
+    public boolean hasUsd(int coin) {
+        return coin >= 0 && !Double.isNaN(usd[coin]);
+    }
+
+    public double usd(int coin) {
+        return usd[coin];
+    }
+
+    /**
+     * 定点 USD 价格（usdScale 位小数，精确等于 usdDecimal），调用前先用 hasUsd 判断
+     */
+    public long usdFixed(int coin) {
+        return usdFixed[coin];
+    }
+
+    /**
+     * usdFixed 的小数位，-1 表示本快照的价格无法用 long 精确表示
+     */
+    public int usdScale() {
+        return usdScale;
+    }
+
+    /**
+     * USD 价格的十进制值，与 BigDecimal.valueOf(usd(coin)) 相同
+     */
+    public BigDecimal usdDecimal(int coin) {
+        return BigDecimal.valueOf(usd[coin]);
+    }
+
+    public double usdChange24h(int coin) {
+        return usdChange24h[coin];
+    }
+
+    public boolean isEmpty() {
+        for (double price : usd) {
+            if (!Double.isNaN(price)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public LocalDateTime fetchedAt() {
+        return fetchedAt;
+    }
+
+    public long fetchedAtMillis() {
+        return fetchedAtMillis;
+    }
+
+    public Source source() {
+        return source;
+    }
+
+    /**
+     * 与 CoinGecko 响应相同结构的只读视图，构建快照时生成一次，供行情接口直接返回
+     */
+    public Map<String, Map<String, Double>> asCoinGeckoMap() {
+        return coinGeckoView;
+    }
+
+    private Map<String, Map<String, Double>> buildCoinGeckoView() {
+        Map<String, Map<String, Double>> view = new LinkedHashMap<>();
+        for (int i = 0; i < SYMBOLS.length; i++) {
+            if (Double.isNaN(usd[i]) && Double.isNaN(cny[i])) {
+                continue;
+            }
+            Map<String, Double> rates = new LinkedHashMap<>();
+            putIfPresent(rates, "usd", usd[i]);
+            putIfPresent(rates, "usd_24h_change", usdChange24h[i]);
+            putIfPresent(rates, "cny", cny[i]);
+            putIfPresent(rates, "cny_24h_change", cnyChange24h[i]);
+            view.put(COIN_GECKO_IDS[i], Collections.unmodifiableMap(rates));
+        }
+        return Collections.unmodifiableMap(view);
+    }
+
+    private static void putIfPresent(Map<String, Double> rates, String key, double value) {
+        if (!Double.isNaN(value)) {
+            rates.put(key, value);
+        }
+    }
+
+    /**
+     * 取所有价格中最大的小数位作为统一小数位，把价格精确放大后写入 fixed；无法精确表示时返回 -1
+     */
+    private static int fixedScale(double[] prices, long[] fixed) {
+        BigDecimal[] decimals = new BigDecimal[prices.length];
+        int scale = 0;
+        for (int i = 0; i < prices.length; i++) {
+            if (Double.isNaN(prices[i])) {
+                continue;
+            }
+            if (Double.isInfinite(prices[i])) {
+                return -1;
+            }
+            decimals[i] = BigDecimal.valueOf(prices[i]).stripTrailingZeros();
+            scale = Math.max(scale, decimals[i].scale());
+        }
+        if (scale > FixedPoint.MAX_PRICE_SCALE) {
+            return -1;
+        }
+        for (int i = 0; i < prices.length; i++) {
+            if (decimals[i] != null) {
+                BigInteger unscaled = decimals[i].setScale(scale).unscaledValue();
+                if (unscaled.bitLength() > 63) {
+                    return -1;
+                }
+                fixed[i] = unscaled.longValue();
+            }
+        }
+        return scale;
+    }
+
+    private static double[] emptyColumn() {
+        double[] column = new double[SYMBOLS.length];
+        java.util.Arrays.fill(column, Double.NaN);
+        return column;
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number number ? number.doubleValue() : Double.NaN;
+    }
+
+    public enum Source {
+        LIVE,
+        DEFAULT
+    }
+}
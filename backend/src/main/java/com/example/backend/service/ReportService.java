@@ -29,9 +29,11 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -41,6 +43,8 @@ public class ReportService {
     private final ReportNewsRepository reportNewsRepository;
     private final NewsRepository newsRepository;
     private final PortfolioHoldingRepository holdingRepository;
+    private final ExchangeRateService exchangeRateService;
+    private final PortfolioValuationEngine valuationEngine;
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     public List<ReportSummaryDto> listReports() {
@@ -71,10 +75,10 @@ public class ReportService {
         }
         
         // 3. 获取当前所有持仓
-        List<PortfolioHolding> currentHoldings = holdingRepository.findAll();
+        List<PortfolioHolding> currentHoldings = holdingRepository.findByPortfolioId(PortfolioHolding.DEFAULT_PORTFOLIO_ID);
         
         // 获取加密货币价格
-        Map<String, BigDecimal> coinPrices = getCoinPrices();
+        PriceSnapshot coinPrices = exchangeRateService.getPriceSnapshot();
         
         // 4. 根据建议更新持仓数据
         for (ReportChange change : changes) {
@@ -97,32 +101,33 @@ public class ReportService {
     }
     
     /**
-     * 获取加密货币的模拟价格（实际应用中应该从外部API获取）
+     * 行情快照之外的币种使用的参考价格
      */
-    private Map<String, BigDecimal> getCoinPrices() {
-        return Map.of(
-            "BTC", new BigDecimal(50000),
-            "ETH", new BigDecimal(2500),
-            "BNB", new BigDecimal(300),
-            "SOL", new BigDecimal(100),
-            "DOGE", new BigDecimal(0.1),
-            "ADA", new BigDecimal(1.0),
-            "XRP", new BigDecimal(0.5),
-            "DOT", new BigDecimal(7.0),
-            "LTC", new BigDecimal(80.0),
-            "BCH", new BigDecimal(250.0)
-        );
-    }
+    private static final Map<String, BigDecimal> FALLBACK_PRICES = Map.of(
+        "BTC", new BigDecimal(50000),
+        "ETH", new BigDecimal(2500),
+        "BNB", new BigDecimal(300),
+        "SOL", new BigDecimal(100),
+        "DOGE", new BigDecimal("0.1"),
+        "ADA", new BigDecimal("1.0"),
+        "XRP", new BigDecimal("0.5"),
+        "DOT", new BigDecimal("7.0"),
+        "LTC", new BigDecimal("80.0"),
+        "BCH", new BigDecimal("250.0")
+    );
     
     /**
      * 更新持仓的数量和美元价值
      */
-    private void updateHoldingAmountAndValue(PortfolioHolding holding, BigDecimal amount, Map<String, BigDecimal> coinPrices) {
+    private void updateHoldingAmountAndValue(PortfolioHolding holding, BigDecimal amount, PriceSnapshot coinPrices) {
         // 更新持仓数量
         holding.setAmount(amount);
         
         // 更新美元价值
-        BigDecimal price = coinPrices.getOrDefault(holding.getCoin(), BigDecimal.ONE);
+        int coin = PriceSnapshot.coinIndex(holding.getCoin());
+        BigDecimal price = coinPrices.hasUsd(coin)
+                ? BigDecimal.valueOf(coinPrices.usd(coin))
+                : FALLBACK_PRICES.getOrDefault(holding.getCoin(), BigDecimal.ONE);
         BigDecimal newValue = amount.multiply(price);
         holding.setValueUsd(newValue);
         
@@ -131,36 +136,77 @@ public class ReportService {
         
         // 保存更新后的持仓
         holdingRepository.save(holding);
+        
+        // 事务结束后估值引擎重新读取该组合
+        valuationEngine.invalidate(holding.getPortfolioId());
     }
     
     /**
      * 重新计算所有持仓的百分比
      */
     private void recalculatePercentages() {
-        List<PortfolioHolding> holdings = holdingRepository.findAll();
+        List<PortfolioHolding> holdings = holdingRepository.findByPortfolioId(PortfolioHolding.DEFAULT_PORTFOLIO_ID)
+                .stream()
+                .filter(holding -> holding.getValueUsd() != null)
+                .toList();
         
-        // 计算总资产价值
-        BigDecimal totalValue = holdings.stream()
-                .map(PortfolioHolding::getValueUsd)
-                .filter(value -> value != null)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // 与估值引擎相同走 FixedPoint 的 long 运算，溢出时退回 BigDecimal，两者结果一致
+        List<BigDecimal> values = holdings.stream().map(PortfolioHolding::getValueUsd).toList();
+        List<BigDecimal> percentages = fixedPointPercentages(values);
+        if (percentages == null) {
+            percentages = bigDecimalPercentages(values);
+        }
         
-        // 避免除零错误
-        if (totalValue.compareTo(BigDecimal.ZERO) <= 0) {
+        // 总资产不为正时不更新（避免除零错误）
+        if (percentages.isEmpty()) {
             return;
         }
-        
-        // 重新计算每个持仓的百分比
-        for (PortfolioHolding holding : holdings) {
-            BigDecimal value = holding.getValueUsd();
-            if (value != null) {
-                BigDecimal percentage = value.divide(totalValue, 4, RoundingMode.HALF_UP)
-                        .multiply(new BigDecimal("100"))
-                        .setScale(2, RoundingMode.HALF_UP);
-                holding.setPercentage(percentage);
-                holdingRepository.save(holding);
+        for (int i = 0; i < holdings.size(); i++) {
+            PortfolioHolding holding = holdings.get(i);
+            holding.setPercentage(percentages.get(i));
+            holdingRepository.save(holding);
+        }
+    }
+    
+    /**
+     * 市值统一放大到其中最大的小数位（刚更新的市值是未舍入的 数量 × 价格，库中读出的是两位小数）后按 long 求和与求占比；
+     * 放大后超出 long 或求和溢出时返回 null
+     */
+    static List<BigDecimal> fixedPointPercentages(List<BigDecimal> values) {
+        int scale = values.stream()
+                .mapToInt(value -> Math.max(0, value.scale()))
+                .max()
+                .orElse(0);
+        long[] scaled = new long[values.size()];
+        long total = 0;
+        try {
+            for (int i = 0; i < scaled.length; i++) {
+                scaled[i] = values.get(i).setScale(scale).unscaledValue().longValueExact();
+                total = Math.addExact(total, scaled[i]);
             }
+        } catch (ArithmeticException ex) {
+            return null;
+        }
+        if (total <= 0) {
+            return List.of();
+        }
+        List<BigDecimal> percentages = new ArrayList<>(scaled.length);
+        for (long value : scaled) {
+            percentages.add(FixedPoint.toPercentage(FixedPoint.percentage(value, total)));
+        }
+        return percentages;
+    }
+    
+    static List<BigDecimal> bigDecimalPercentages(List<BigDecimal> values) {
+        BigDecimal totalValue = values.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (totalValue.compareTo(BigDecimal.ZERO) <= 0) {
+            return List.of();
         }
+        return values.stream()
+                .map(value -> value.divide(totalValue, 4, RoundingMode.HALF_UP)
+                        .multiply(new BigDecimal("100"))
+                        .setScale(2, RoundingMode.HALF_UP))
+                .toList();
     }
 
     @Transactional
@@ -192,10 +238,10 @@ public class ReportService {
         }
         
         // 获取加密货币价格
-        Map<String, BigDecimal> coinPrices = getCoinPrices();
+        PriceSnapshot coinPrices = exchangeRateService.getPriceSnapshot();
         
         // 2. 获取当前所有持仓
-        List<PortfolioHolding> currentHoldings = holdingRepository.findAll();
+        List<PortfolioHolding> currentHoldings = holdingRepository.findByPortfolioId(PortfolioHolding.DEFAULT_PORTFOLIO_ID);
         
         // 3. 将持仓数据恢复到报告生成时的状态（即ReportChange中的currentAmount）
         for (ReportChange change : changes) {
@@ -245,7 +291,8 @@ public class ReportService {
                         .map(this::toChangeDto)
                         .toList();
 
-        List<HoldingDto> currentHoldings = holdingRepository.findAll().stream()
+        List<HoldingDto> currentHoldings = holdingRepository
+                .findByPortfolioId(PortfolioHolding.DEFAULT_PORTFOLIO_ID).stream()
                 .map(h -> HoldingDto.builder()
                         .coin(h.getCoin())
                         .amount(h.getAmount())
@@ -285,9 +332,14 @@ public class ReportService {
     @Transactional
     public Long batchInsertReport(BatchInsertRequest request) {
         // 数据校验模块
-        // 1. 验证news_id是否都有效
+        // 1. 验证news_id是否都有效（一次查询取回全部关联新闻，加共享锁防止提交前被归档）
+        Map<Long, News> newsById = newsRepository.findAllByIdForShare(request.getReportNews().stream()
+                        .map(Integer::longValue)
+                        .toList())
+                .stream()
+                .collect(Collectors.toMap(News::getId, news -> news));
         for (Integer newsId : request.getReportNews()) {
-            if (!newsRepository.existsById(newsId.longValue())) {
+            if (!newsById.containsKey(newsId.longValue())) {
                 throw new IllegalArgumentException("新闻ID不存在: " + newsId);
             }
         }
@@ -314,7 +366,8 @@ public class ReportService {
             report.setRiskLevel(RiskLevel.valueOf(request.getReport().getRiskLevel()));
             report = reportRepository.save(report);
 
-            // 2. 遍历report_changes，计算change_pct，插入report_change
+            // 2. 遍历report_changes，计算change_pct，批量插入report_change
+            List<ReportChange> reportChanges = new ArrayList<>();
             for (BatchInsertRequest.ReportChangeData changeData : request.getReportChanges()) {
                 // 自动计算change_pct = (proposed_amount - current_amount)/current_amount * 100
                 BigDecimal changePct = changeData.getProposedAmount()
@@ -330,19 +383,19 @@ public class ReportService {
                 reportChange.setProposedAmount(changeData.getProposedAmount());
                 reportChange.setChangePct(changePct);
                 reportChange.setReason(changeData.getReason());
-                reportChangeRepository.save(reportChange);
+                reportChanges.add(reportChange);
             }
+            reportChangeRepository.saveAll(reportChanges);
 
-            // 3. 遍历report_news，插入report_news
+            // 3. 遍历report_news，批量插入report_news
+            List<ReportNews> reportNewsList = new ArrayList<>();
             for (Integer newsId : request.getReportNews()) {
-                News news = newsRepository.findById(newsId.longValue())
-                        .orElseThrow(() -> new IllegalArgumentException("新闻ID不存在: " + newsId));
-
                 ReportNews reportNews = new ReportNews();
                 reportNews.setReport(report);
-                reportNews.setNews(news);
-                reportNewsRepository.save(reportNews);
+                reportNews.setNews(newsById.get(newsId.longValue()));
+                reportNewsList.add(reportNews);
             }
+            reportNewsRepository.saveAll(reportNewsList);
 
             return report.getId();
         } catch (IllegalArgumentException e) {
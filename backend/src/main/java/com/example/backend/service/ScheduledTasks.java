@@ -1,15 +1,31 @@
 package com.example.backend.service;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class ScheduledTasks {
 
     private final PortfolioUpdateService portfolioUpdateService;
+    private final boolean valuationEnabled;
+
+    public ScheduledTasks(PortfolioUpdateService portfolioUpdateService,
+                          @Value("${portfolio.valuation.enabled:true}") boolean valuationEnabled) {
+        this.portfolioUpdateService = portfolioUpdateService;
+        this.valuationEnabled = valuationEnabled;
+    }
+
+    // 定时估值：价格来自行情缓存，变化未超过阈值的持仓不写库，可以高频运行
+    @Scheduled(initialDelayString = "${portfolio.valuation.interval-ms:5000}",
+            fixedDelayString = "${portfolio.valuation.interval-ms:5000}")
+    public void scheduledValuation() {
+        if (valuationEnabled) {
+            portfolioUpdateService.updatePortfolioValues(false);
+        }
+    }
 
     // 手动触发更新的方法（可以通过API调用）
     public void triggerManualUpdate() {
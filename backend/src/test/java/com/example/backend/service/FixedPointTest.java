@@ -0,0 +1,123 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FixedPoint 与原先 BigDecimal 表达式逐项对照：
+ * 市值 amount.multiply(price).setScale(2, HALF_UP)，占比 value.divide(total, 4, HALF_UP).multiply(100).setScale(2, HALF_UP)
+ */
+class FixedPointTest {
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    @Test
+    void valueMatchesBigDecimalForPricesWithManyDecimals() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextInt(100_000_000), FixedPoint.AMOUNT_SCALE);
+            int priceScale = random.nextInt(FixedPoint.MAX_PRICE_SCALE + 1);
+            BigDecimal price = BigDecimal.valueOf(random.nextLong(1, 1_000_000_000_000L), priceScale);
+            int scale = FixedPoint.AMOUNT_SCALE + priceScale;
+
+            long exact = FixedPoint.exactValue(FixedPoint.amount(amount), price.unscaledValue().longValueExact());
+            BigDecimal expected = amount.multiply(price);
+            if (exact == FixedPoint.OVERFLOW) {
+                assertTrue(expected.unscaledValue().bitLength() > 63);
+                continue;
+            }
+            assertEquals(expected.setScale(scale), BigDecimal.valueOf(exact, scale));
+            assertEquals(expected.setScale(2, RoundingMode.HALF_UP), FixedPoint.toMoney(FixedPoint.money(exact, scale)));
+        }
+    }
+
+    @Test
+    void moneyRoundsHalfUpAwayFromZero() {
+        assertEquals(3, FixedPoint.money(25_000L, 6));
+        assertEquals(2, FixedPoint.money(24_999L, 6));
+        assertEquals(-3, FixedPoint.money(-25_000L, 6));
+        assertEquals(12345, FixedPoint.money(12345L, 2));
+    }
+
+    @Test
+    void percentageMatchesBigDecimalOnUnroundedValues() {
+        Random random = new Random(11);
+        for (int i = 0; i < 100_000; i++) {
+            int count = 1 + random.nextInt(6);
+            long[] parts = new long[count];
+            long total = 0;
+            for (int j = 0; j < count; j++) {
+                parts[j] = random.nextLong(0, 1_000_000_000_000_000L / count);
+                total += parts[j];
+            }
+            for (long part : parts) {
+                assertEquals(expectedPercentage(part, total), FixedPoint.percentage(part, total));
+            }
+        }
+    }
+
+    @Test
+    void percentageRoundsTiesUp() {
+        // 1/8 = 0.125 → 12.50%，1/16 = 0.0625 → 6.25%，1/32 = 0.03125 → 3.13%（第 5 位的 5 进位）
+        assertEquals(1250, FixedPoint.percentage(1, 8));
+        assertEquals(625, FixedPoint.percentage(1, 16));
+        assertEquals(313, FixedPoint.percentage(1, 32));
+        assertEquals(313, FixedPoint.percentage(3_125_000_000L, 100_000_000_000L));
+        assertEquals(-313, FixedPoint.percentage(-1, 32));
+        assertEquals(0, FixedPoint.percentage(5, 0));
+    }
+
+    @Test
+    void percentageFallsBackToBigDecimalForHugeTotals() {
+        long total = Long.MAX_VALUE - 1;
+        long part = total / 3;
+        assertEquals(expectedPercentage(part, total), FixedPoint.percentage(part, total));
+        assertEquals(10000, FixedPoint.percentage(total, total));
+        // 商过大时同样退回 BigDecimal
+        long hugePart = 500_000_000_000_000_000L;
+        assertEquals(expectedPercentage(hugePart, 1000), FixedPoint.percentage(hugePart, 1000));
+    }
+
+    @Test
+    void overflowIsReportedInsteadOfWrapping() {
+        assertEquals(FixedPoint.OVERFLOW, FixedPoint.exactValue(1L << 40, 1L << 30));
+        assertEquals(FixedPoint.OVERFLOW, FixedPoint.exactValue(-(1L << 40), 1L << 30));
+        assertEquals(-(1L << 60), FixedPoint.exactValue(-(1L << 30), 1L << 30));
+        assertEquals(FixedPoint.OVERFLOW, FixedPoint.fromMoney(Long.MAX_VALUE / 10, 6));
+        assertEquals(1_234_500L, FixedPoint.fromMoney(12345L, 4));
+    }
+
+    @Test
+    void snapshotKeepsPriceDecimalsExactly() {
+        PriceSnapshot snapshot = PriceSnapshot.fromCoinGecko(Map.of(
+                "bitcoin", Map.of("usd", 65000),
+                "tether", Map.of("usd", 1.123456789)), null, 0, PriceSnapshot.Source.LIVE);
+        int bitcoin = PriceSnapshot.coinIndex("BTC");
+        int tether = PriceSnapshot.coinIndex("USDT");
+
+        assertEquals(9, snapshot.usdScale());
+        assertEquals(1_123_456_789L, snapshot.usdFixed(tether));
+        assertEquals(65_000_000_000_000L, snapshot.usdFixed(bitcoin));
+        assertEquals(snapshot.usdDecimal(tether), BigDecimal.valueOf(snapshot.usdFixed(tether), snapshot.usdScale()));
+    }
+
+    @Test
+    void snapshotWithTooManyDecimalsHasNoFixedScale() {
+        PriceSnapshot snapshot = PriceSnapshot.fromCoinGecko(Map.of(
+                "tether", Map.of("usd", 0.0000001234567891)), null, 0, PriceSnapshot.Source.LIVE);
+        assertEquals(-1, snapshot.usdScale());
+    }
+
+    private static long expectedPercentage(long part, long total) {
+        return FixedPoint.percentage(BigDecimal.valueOf(part)
+                .divide(BigDecimal.valueOf(total), 4, RoundingMode.HALF_UP)
+                .multiply(HUNDRED)
+                .setScale(2, RoundingMode.HALF_UP));
+    }
+}
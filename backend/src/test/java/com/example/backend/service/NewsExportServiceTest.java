@@ -0,0 +1,82 @@
+package com.example.backend.service;
+
+import com.example.backend.model.SentimentType;
+import com.example.backend.repository.NewsExportRow;
+import com.example.backend.repository.NewsHistoryRepository;
+import com.example.backend.repository.NewsRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NewsExportServiceTest {
+    private static final LocalDateTime FROM = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2027, 1, 1, 0, 0);
+
+    private final NewsService newsService = mock(NewsService.class);
+    private final NewsRepository newsRepository = mock(NewsRepository.class);
+    private final NewsHistoryRepository newsHistoryRepository = mock(NewsHistoryRepository.class);
+    private final NewsExportService exportService =
+            new NewsExportService(newsService, newsRepository, newsHistoryRepository, new ObjectMapper());
+
+    @Test
+    void exportsArchivedRowsBeforeLiveRowsWithTheSameFilter() throws IOException {
+        NewsService.ExportFilter filter = new NewsService.ExportFilter("BTC", SentimentType.BULLISH, FROM, TO);
+        when(newsService.exportFilter("btc", "bullish", "2020-01-01 00:00", "2027-01-01 00:00")).thenReturn(filter);
+        AtomicBoolean archiveClosed = new AtomicBoolean();
+        when(newsHistoryRepository.streamArchivedExportRows("BTC", SentimentType.BULLISH, FROM, TO))
+                .thenReturn(Stream.of(row(3L, "archived", LocalDateTime.of(2021, 5, 1, 8, 0)))
+                        .onClose(() -> archiveClosed.set(true)));
+        when(newsRepository.streamExportRows(any(), any())).thenAnswer(invocation -> {
+            // 同一连接上同时只能有一个逐行读取的结果集，归档游标必须先关闭
+            assertTrue(archiveClosed.get());
+            return Stream.of(row(42L, "live", LocalDateTime.of(2026, 10, 1, 9, 30)));
+        });
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long rows = exportService.export("btc", "bullish", "2020-01-01 00:00", "2027-01-01 00:00",
+                NewsExportService.Format.NDJSON, output);
+
+        assertEquals(2, rows);
+        assertEquals(List.of(
+                "{\"id\":3,\"title\":\"archived\",\"summary\":\"s\",\"coin\":\"BTC\",\"sentiment\":\"bullish\","
+                        + "\"sourceUrl\":null,\"publishedAt\":\"2021-05-01 08:00:00\",\"read\":true}",
+                "{\"id\":42,\"title\":\"live\",\"summary\":\"s\",\"coin\":\"BTC\",\"sentiment\":\"bullish\","
+                        + "\"sourceUrl\":null,\"publishedAt\":\"2026-10-01 09:30:00\",\"read\":true}"),
+                output.toString(StandardCharsets.UTF_8).lines().toList());
+    }
+
+    @Test
+    void exportsArchivedRowsWhenNewsTableHasNoMatch() throws IOException {
+        NewsService.ExportFilter filter = new NewsService.ExportFilter(null, null, null, null);
+        when(newsService.exportFilter(null, null, null, null)).thenReturn(filter);
+        when(newsHistoryRepository.streamArchivedExportRows(null, null, null, null))
+                .thenReturn(Stream.of(row(3L, "archived, quoted", LocalDateTime.of(2021, 5, 1, 8, 0))));
+        when(newsRepository.streamExportRows(any(), any())).thenReturn(Stream.empty());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long rows = exportService.export(null, null, null, null, NewsExportService.Format.CSV, output);
+
+        assertEquals(1, rows);
+        assertEquals(List.of(
+                "id,title,summary,coin,sentiment,sourceUrl,publishedAt,read",
+                "3,\"archived, quoted\",s,BTC,bullish,,2021-05-01 08:00:00,true"),
+                output.toString(StandardCharsets.UTF_8).lines().toList());
+    }
+
+    private static NewsExportRow row(long id, String title, LocalDateTime publishedAt) {
+        return new NewsExportRow(id, title, "s", "BTC", SentimentType.BULLISH, null, publishedAt, true);
+    }
+}
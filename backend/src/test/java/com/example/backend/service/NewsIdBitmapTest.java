@@ -0,0 +1,164 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * NewsIdBitmap 与 TreeSet 逐项对照；跨多个桶、同时包含稀疏（数组容器）和稠密（位图容器）的ID段
+ */
+class NewsIdBitmapTest {
+    // 序列化结果中第一个桶的容器类型：版本号 1 字节 + 桶数 4 字节 + 桶键 8 字节之后
+    private static final int FIRST_CONTAINER_TYPE_OFFSET = 1 + 4 + 8;
+
+    @Test
+    void matchesTreeSetUnderRandomAddsAndRemoves() {
+        Random random = new Random(11);
+        NewsIdBitmap bitmap = new NewsIdBitmap();
+        TreeSet<Long> expected = new TreeSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            long id = randomId(random);
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(id), bitmap.remove(id));
+            } else {
+                assertEquals(expected.add(id), bitmap.add(id));
+            }
+        }
+        assertEquals(expected.size(), bitmap.cardinality());
+        assertEquals(new ArrayList<>(expected), toList(bitmap));
+        for (int i = 0; i < 10_000; i++) {
+            long id = randomId(random);
+            assertEquals(expected.contains(id), bitmap.contains(id));
+        }
+    }
+
+    @Test
+    void serializeRoundTripKeepsContents() {
+        Random random = new Random(13);
+        NewsIdBitmap bitmap = new NewsIdBitmap();
+        for (int i = 0; i < 50_000; i++) {
+            bitmap.add(randomId(random));
+        }
+        NewsIdBitmap copy = NewsIdBitmap.deserialize(bitmap.serialize());
+        assertEquals(bitmap.cardinality(), copy.cardinality());
+        assertEquals(toList(bitmap), toList(copy));
+        assertEquals(bitmap.cardinality(), bitmap.andCardinality(copy));
+    }
+
+    @Test
+    void deserializeEmptyAndRejectUnknownFormat() {
+        assertEquals(0, NewsIdBitmap.deserialize(null).cardinality());
+        assertEquals(0, NewsIdBitmap.deserialize(new byte[0]).cardinality());
+        assertEquals(0, NewsIdBitmap.deserialize(new NewsIdBitmap().serialize()).cardinality());
+        byte[] data = new NewsIdBitmap().serialize();
+        data[0] = 9;
+        assertThrows(IllegalArgumentException.class, () -> NewsIdBitmap.deserialize(data));
+    }
+
+    @Test
+    void andNotAndAndCardinalityMatchSetOperations() {
+        Random random = new Random(17);
+        NewsIdBitmap left = new NewsIdBitmap();
+        NewsIdBitmap right = new NewsIdBitmap();
+        TreeSet<Long> leftSet = new TreeSet<>();
+        TreeSet<Long> rightSet = new TreeSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            long id = randomId(random);
+            if (random.nextBoolean()) {
+                left.add(id);
+                leftSet.add(id);
+            } else {
+                right.add(id);
+                rightSet.add(id);
+            }
+        }
+
+        TreeSet<Long> intersection = new TreeSet<>(leftSet);
+        intersection.retainAll(rightSet);
+        assertEquals(intersection.size(), left.andCardinality(right));
+        assertEquals(intersection.size(), right.andCardinality(left));
+
+        TreeSet<Long> difference = new TreeSet<>(leftSet);
+        difference.removeAll(rightSet);
+        NewsIdBitmap result = left.andNot(right);
+        assertEquals(new ArrayList<>(difference), toList(result));
+        assertEquals(difference.size(), result.cardinality());
+        // 两个操作数都不被修改
+        assertEquals(new ArrayList<>(leftSet), toList(left));
+        assertEquals(new ArrayList<>(rightSet), toList(right));
+        assertEquals(0, left.andNot(left).cardinality());
+        assertEquals(left.cardinality(), left.andNot(new NewsIdBitmap()).cardinality());
+    }
+
+    @Test
+    void containerSwitchesBetweenArrayAndBitmap() {
+        NewsIdBitmap bitmap = new NewsIdBitmap();
+        for (long id = 0; id < 4096; id++) {
+            bitmap.add(id * 2);
+        }
+        assertEquals(0, firstContainerType(bitmap));
+
+        bitmap.add(8193);
+        assertEquals(1, firstContainerType(bitmap));
+        assertEquals(4097, bitmap.cardinality());
+        assertTrue(bitmap.contains(8193));
+        assertEquals(toList(bitmap), toList(NewsIdBitmap.deserialize(bitmap.serialize())));
+
+        // 删到 2048 个时退回数组容器
+        for (long id = 0; id < 2049; id++) {
+            bitmap.remove(id * 2);
+        }
+        assertEquals(2048, bitmap.cardinality());
+        assertEquals(0, firstContainerType(bitmap));
+        assertFalse(bitmap.contains(0));
+        assertTrue(bitmap.contains(8190));
+
+        // 桶清空后整个桶被删除
+        new ArrayList<>(toList(bitmap)).forEach(bitmap::remove);
+        assertEquals(0, bitmap.cardinality());
+        assertEquals(5, bitmap.serialize().length);
+    }
+
+    @Test
+    void andNotOfDenseBitmapsFallsBackToArray() {
+        NewsIdBitmap all = new NewsIdBitmap();
+        NewsIdBitmap most = new NewsIdBitmap();
+        for (long id = 0; id < 10_000; id++) {
+            all.add(id);
+            if (id % 100 != 0) {
+                most.add(id);
+            }
+        }
+        NewsIdBitmap rest = all.andNot(most);
+        assertEquals(100, rest.cardinality());
+        assertEquals(0, firstContainerType(rest));
+        assertEquals(1, firstContainerType(all.andNot(new NewsIdBitmap())));
+    }
+
+    /**
+     * 一半落在两个稠密的桶里，一半分散在很大的ID范围内
+     */
+    private static long randomId(Random random) {
+        return random.nextBoolean()
+                ? random.nextInt(2 * 65_536)
+                : random.nextLong(1, 1L << 40);
+    }
+
+    private static List<Long> toList(NewsIdBitmap bitmap) {
+        List<Long> ids = new ArrayList<>();
+        bitmap.forEach(ids::add);
+        return ids;
+    }
+
+    private static byte firstContainerType(NewsIdBitmap bitmap) {
+        return bitmap.serialize()[FIRST_CONTAINER_TYPE_OFFSET];
+    }
+}
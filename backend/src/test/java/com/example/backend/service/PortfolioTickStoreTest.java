@@ -0,0 +1,109 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PortfolioTickStoreTest {
+    private static final int HEADER_BYTES = 16;
+    private static final int CRC_OFFSET = 36;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenTruncatesTheCurrentSegmentAtACorruptRecord() throws IOException {
+        long start = startOf(LocalDate.now());
+        PortfolioTickStore store = open();
+        for (int i = 0; i < 5; i++) {
+            store.append(start + i * 1000L, "BTC", 65000 + i, 0.5);
+        }
+        store.flush();
+        store.close();
+
+        corruptCrc(file(LocalDate.now()), 3);
+
+        PortfolioTickStore reopened = open();
+        assertEquals(List.of(start, start + 1000, start + 2000), timestamps(reopened, start));
+        // 截断位置之后继续追加，被截掉的记录不会重新出现
+        reopened.append(start + 10_000, "ETH", 3000, 0.5);
+        assertEquals(List.of(start, start + 1000, start + 2000, start + 10_000), timestamps(reopened, start));
+        reopened.close();
+
+        PortfolioTickStore again = open();
+        assertEquals(List.of(start, start + 1000, start + 2000, start + 10_000), timestamps(again, start));
+        again.close();
+    }
+
+    @Test
+    void queriesOpenPastSegmentsReadOnly() throws IOException {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        long start = startOf(yesterday);
+        PortfolioTickStore store = open();
+        for (int i = 0; i < 4; i++) {
+            store.append(start + i * 1000L, i % 2 == 0 ? "BTC" : "ETH", 100 + i, 0.25);
+        }
+        store.flush();
+        store.close();
+
+        // 只保留写入的记录和半条被中断的记录，第 3 条的 CRC 损坏
+        Path file = file(yesterday);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(HEADER_BYTES + 4L * PortfolioTickStore.RECORD_BYTES + 12);
+        }
+        corruptCrc(file, 2);
+        byte[] before = Files.readAllBytes(file);
+
+        PortfolioTickStore reopened = open();
+        assertEquals(List.of(start, start + 1000), timestamps(reopened, start));
+        List<String> coins = new ArrayList<>();
+        reopened.scan("BTC", start, start + 86_400_000L, (timestamp, coin, price, allocation) -> coins.add(coin));
+        assertEquals(List.of("BTC"), coins);
+        reopened.close();
+
+        // 查询不扩容、不截断、不改写历史段
+        assertArrayEquals(before, Files.readAllBytes(file));
+    }
+
+    private PortfolioTickStore open() throws IOException {
+        PortfolioTickStore store = new PortfolioTickStore(true, directory.toString(), 30);
+        store.open();
+        return store;
+    }
+
+    private Path file(LocalDate day) {
+        return directory.resolve("ticks-" + day.format(DateTimeFormatter.BASIC_ISO_DATE) + ".dat");
+    }
+
+    private static long startOf(LocalDate day) {
+        return day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli() + 1000;
+    }
+
+    private static void corruptCrc(Path file, int record) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            long offset = HEADER_BYTES + (long) record * PortfolioTickStore.RECORD_BYTES + CRC_OFFSET;
+            raf.seek(offset);
+            int crc = raf.readInt();
+            raf.seek(offset);
+            raf.writeInt(~crc);
+        }
+    }
+
+    private static List<Long> timestamps(PortfolioTickStore store, long from) {
+        List<Long> timestamps = new ArrayList<>();
+        store.scan(null, from, from + 86_400_000L, (timestamp, coin, price, allocation) -> timestamps.add(timestamp));
+        return timestamps;
+    }
+}
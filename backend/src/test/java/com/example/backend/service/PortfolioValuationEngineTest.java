@@ -0,0 +1,108 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PortfolioValuationEngineTest {
+
+    @Test
+    void percentagesUseUnroundedValues() {
+        PriceSnapshot prices = PriceSnapshot.fromCoinGecko(Map.of(
+                "bitcoin", Map.of("usd", 8750),
+                "tether", Map.of("usd", 1.25)), null, 0, PriceSnapshot.Source.LIVE);
+        PortfolioValuationEngine.HoldingTable table = table(new BigDecimal("0.0001"), new BigDecimal("0.1000"));
+
+        assertEquals(0, table.value(0, prices, 0, 0));
+        // 0.875 与 0.125 各自舍入到分是 0.88 与 0.13，按舍入后的市值算占比会得到 87.13% 与 12.87%
+        assertEquals("BTC=0.88/87.50 USDT=0.13/12.50", actual(table));
+    }
+
+    @Test
+    void fallsBackToBigDecimalWhenTheTotalOverflows() {
+        PriceSnapshot prices = PriceSnapshot.fromCoinGecko(Map.of(
+                "bitcoin", Map.of("usd", 65000.123456789),
+                "tether", Map.of("usd", 0.999999999)), null, 0, PriceSnapshot.Source.LIVE);
+        BigDecimal bitcoin = new BigDecimal("123456789.0000");
+        BigDecimal tether = new BigDecimal("98765432.1234");
+        PortfolioValuationEngine.HoldingTable table = table(bitcoin, tether);
+
+        assertEquals(FixedPoint.OVERFLOW, FixedPoint.exactValue(FixedPoint.amount(bitcoin),
+                prices.usdFixed(PriceSnapshot.coinIndex("BTC"))));
+        assertEquals(0, table.value(0, prices, 0, 0));
+        assertEquals(expected(bitcoin, new BigDecimal("65000.123456789"), tether, new BigDecimal("0.999999999")),
+                actual(table));
+    }
+
+    @Test
+    void replacesReloadedPortfoliosInPlace() {
+        PriceSnapshot prices = PriceSnapshot.fromCoinGecko(Map.of(
+                "bitcoin", Map.of("usd", 8750),
+                "tether", Map.of("usd", 1.25)), null, 0, PriceSnapshot.Source.LIVE);
+        PortfolioValuationEngine.HoldingTable table = new PortfolioValuationEngine.HoldingTable();
+        table.add(1, 1, "BTC", new BigDecimal("0.0001"), null, null);
+        table.add(2, 1, "USDT", new BigDecimal("0.1000"), null, null);
+        table.add(3, 7, "BTC", new BigDecimal("1.0000"), null, null);
+        table.finish();
+        assertEquals(1, table.portfolioIdOf(1));
+        assertEquals(7, table.portfolioIdOf(2));
+
+        PortfolioValuationEngine.HoldingTable reloaded = new PortfolioValuationEngine.HoldingTable();
+        reloaded.add(1, 1, "BTC", new BigDecimal("0.0001"), null, null);
+        reloaded.add(2, 1, "USDT", new BigDecimal("0.7000"), null, null);
+        reloaded.finish();
+        assertTrue(table.replace(List.of(1L, 99L), reloaded));
+        table.value(0, prices, 0, 0);
+        assertEquals("BTC=0.88/50.00 USDT=0.88/50.00", actual(table));
+
+        PortfolioValuationEngine.HoldingTable grown = new PortfolioValuationEngine.HoldingTable();
+        grown.add(3, 7, "BTC", new BigDecimal("1.0000"), null, null);
+        grown.add(4, 7, "USDT", new BigDecimal("1.0000"), null, null);
+        grown.finish();
+        assertFalse(table.replace(List.of(7L), grown));
+
+        PortfolioValuationEngine.HoldingTable added = new PortfolioValuationEngine.HoldingTable();
+        added.add(5, 99, "BTC", new BigDecimal("1.0000"), null, null);
+        added.finish();
+        assertFalse(table.replace(List.of(99L), added));
+    }
+
+    private static PortfolioValuationEngine.HoldingTable table(BigDecimal bitcoin, BigDecimal tether) {
+        PortfolioValuationEngine.HoldingTable table = new PortfolioValuationEngine.HoldingTable();
+        table.add(1, 1, "BTC", bitcoin, null, null);
+        table.add(2, 1, "USDT", tether, null, null);
+        table.finish();
+        return table;
+    }
+
+    private static String actual(PortfolioValuationEngine.HoldingTable table) {
+        return describe(table.valued(0)) + " " + describe(table.valued(1));
+    }
+
+    private static String describe(PortfolioValuationEngine.ValuedHolding holding) {
+        return holding.coin() + "=" + FixedPoint.toMoney(holding.valueUsd())
+                + "/" + FixedPoint.toPercentage(holding.percentage());
+    }
+
+    private static String expected(BigDecimal bitcoinAmount, BigDecimal bitcoinPrice,
+                                   BigDecimal tetherAmount, BigDecimal tetherPrice) {
+        BigDecimal bitcoin = bitcoinAmount.multiply(bitcoinPrice);
+        BigDecimal tether = tetherAmount.multiply(tetherPrice);
+        BigDecimal total = bitcoin.add(tether);
+        return "BTC=" + bitcoin.setScale(2, RoundingMode.HALF_UP) + "/" + percentage(bitcoin, total)
+                + " USDT=" + tether.setScale(2, RoundingMode.HALF_UP) + "/" + percentage(tether, total);
+    }
+
+    private static BigDecimal percentage(BigDecimal value, BigDecimal total) {
+        return value.divide(total, 4, RoundingMode.HALF_UP)
+                .multiply(new BigDecimal("100"))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 持仓占比的 FixedPoint 计算与原先 BigDecimal 表达式对照：市值混合库中两位小数的旧值和未舍入的 数量 × 价格
+ */
+class ReportServiceTest {
+
+    @Test
+    void fixedPointPercentagesMatchBigDecimal() {
+        Random random = new Random(23);
+        int compared = 0;
+        for (int round = 0; round < 20_000; round++) {
+            List<BigDecimal> values = new ArrayList<>();
+            int holdings = random.nextInt(1, 8);
+            for (int i = 0; i < holdings; i++) {
+                values.add(random.nextBoolean()
+                        ? BigDecimal.valueOf(random.nextLong(0, 100_000_000L), 2)
+                        : BigDecimal.valueOf(random.nextLong(0, 10_000_000L), 4)
+                        .multiply(BigDecimal.valueOf(random.nextLong(1, 100_000_000L), random.nextInt(5))));
+            }
+            List<BigDecimal> fixed = ReportService.fixedPointPercentages(values);
+            if (fixed == null) {
+                continue;
+            }
+            assertEquals(ReportService.bigDecimalPercentages(values), fixed);
+            compared++;
+        }
+        // 只有极大持仓放大到最大小数位后超出 long 时才退回 BigDecimal
+        assertTrue(compared > 19_000);
+    }
+
+    @Test
+    void zeroTotalLeavesPercentagesUnchanged() {
+        List<BigDecimal> values = List.of(BigDecimal.ZERO, new BigDecimal("0.00"));
+        assertTrue(ReportService.fixedPointPercentages(values).isEmpty());
+        assertTrue(ReportService.bigDecimalPercentages(values).isEmpty());
+    }
+
+    @Test
+    void overflowFallsBackToBigDecimal() {
+        List<BigDecimal> values = List.of(new BigDecimal("92233720368547758.07"), new BigDecimal("1.00"));
+        assertNull(ReportService.fixedPointPercentages(values));
+        assertEquals(List.of(new BigDecimal("100.00"), new BigDecimal("0.00")),
+                ReportService.bigDecimalPercentages(values));
+    }
+}
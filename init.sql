@@ -12,6 +12,7 @@ USE ai;
 SET FOREIGN_KEY_CHECKS = 0;
 
 -- 创建表结构
+DROP TABLE IF EXISTS user_news_read;
 DROP TABLE IF EXISTS user_role;
 DROP TABLE IF EXISTS role;
 DROP TABLE IF EXISTS user;
@@ -21,19 +22,65 @@ DROP TABLE IF EXISTS report;
 DROP TABLE IF EXISTS portfolio_history;
 DROP TABLE IF EXISTS portfolio;
 DROP TABLE IF EXISTS news;
+DROP TABLE IF EXISTS news_archive;
+DROP TABLE IF EXISTS id_generator;
 
 -- news表 - 存储新闻信息
+-- 按 published_at 按月 RANGE 分区：查询默认只落在近期热分区上，历史分区由归档任务迁入 news_archive 后删除。
+-- 分区表要求分区列包含在主键中，且不能被外键引用，因此主键为 (id, published_at)，由此带来的取舍：
+--   1. id 单独不再有唯一约束，唯一性完全由 id_generator 号段分配保证（news 与 news_archive 共用同一序列，归档只搬迁不改 ID）；
+--      不用 BEFORE INSERT 触发器逐分区探测重复 ID：每次插入都要探测所有分区，且覆盖不到 news_archive；
+--   2. 只按 id 查询（详情、报告关联的新闻）无法做分区裁剪，会在每个分区的主键上各探测一次，分区数因此保持在十几个；
+--   3. report_news 不再对 news 建外键：归档任务对候选新闻加排他锁后跳过被引用的新闻，新建报告时对引用的新闻加共享锁，
+--      两者串行，代替外键保证不产生悬空引用。
+-- 下面只预建到建表时的月分区，之后的月分区由 NewsArchiveService 在启动时和每天定时从 p_future 拆分出来
 CREATE TABLE news (
     id BIGINT NOT NULL AUTO_INCREMENT,
     title VARCHAR(255),
-    summary TEXT,
+    summary BLOB COMMENT 'UTF-8 文本，较长时以 Deflate 压缩（见 CompressedTextConverter）',
     coin VARCHAR(20),
     sentiment VARCHAR(20),
     source_url VARCHAR(500),
-    published_at DATETIME,
+    published_at DATETIME NOT NULL,
     is_read TINYINT(1) DEFAULT 0 COMMENT '0=未读,1=已读',
-    PRIMARY KEY (id)
-) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci;
+    PRIMARY KEY (id, published_at),
+    -- 游标分页：按币种/情绪过滤后沿 (published_at, id) 倒序扫描
+    INDEX idx_news_coin_sentiment_published (coin, sentiment, published_at, id),
+    -- 不带过滤条件（all/all）的游标分页
+    INDEX idx_news_published (published_at, id)
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci
+PARTITION BY RANGE COLUMNS (published_at) (
+    PARTITION p_history VALUES LESS THAN ('2025-12-01'),
+    PARTITION p202512 VALUES LESS THAN ('2026-01-01'),
+    PARTITION p202601 VALUES LESS THAN ('2026-02-01'),
+    PARTITION p202602 VALUES LESS THAN ('2026-03-01'),
+    PARTITION p202603 VALUES LESS THAN ('2026-04-01'),
+    PARTITION p202604 VALUES LESS THAN ('2026-05-01'),
+    PARTITION p202605 VALUES LESS THAN ('2026-06-01'),
+    PARTITION p202606 VALUES LESS THAN ('2026-07-01'),
+    PARTITION p202607 VALUES LESS THAN ('2026-08-01'),
+    PARTITION p202608 VALUES LESS THAN ('2026-09-01'),
+    PARTITION p202609 VALUES LESS THAN ('2026-10-01'),
+    PARTITION p202610 VALUES LESS THAN ('2026-11-01'),
+    PARTITION p202611 VALUES LESS THAN ('2026-12-01'),
+    PARTITION p202612 VALUES LESS THAN ('2027-01-01'),
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
+
+-- news_archive表 - 超过保留期限的历史新闻，压缩行格式存储，默认列表查询不访问，history=true 时与 news 合并查询
+CREATE TABLE news_archive (
+    id BIGINT NOT NULL,
+    title VARCHAR(255),
+    summary BLOB COMMENT 'UTF-8 文本，较长时以 Deflate 压缩（见 CompressedTextConverter）',
+    coin VARCHAR(20),
+    sentiment VARCHAR(20),
+    source_url VARCHAR(500),
+    published_at DATETIME NOT NULL,
+    is_read TINYINT(1) DEFAULT 0,
+    archived_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    INDEX idx_news_archive_coin_published (coin, published_at)
+) ENGINE = InnoDB ROW_FORMAT = COMPRESSED KEY_BLOCK_SIZE = 8 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci;
 
 -- user表 - 存储用户信息
 CREATE TABLE user (
@@ -72,16 +119,26 @@ CREATE TABLE user_role (
     CONSTRAINT fk_user_role_role FOREIGN KEY (role_id) REFERENCES role (id) ON DELETE NO ACTION ON UPDATE NO ACTION
 ) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci;
 
+-- user_news_read表 - 按用户存储新闻已读状态，已读新闻ID序列化为压缩位图
+CREATE TABLE user_news_read (
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    read_bitmap MEDIUMBLOB COMMENT '已读新闻ID位图',
+    updated_at DATETIME COMMENT '更新时间',
+    PRIMARY KEY (user_id),
+    CONSTRAINT fk_user_news_read_user FOREIGN KEY (user_id) REFERENCES user (id) ON DELETE CASCADE ON UPDATE NO ACTION
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci;
+
 -- portfolio表 - 存储投资组合
 CREATE TABLE portfolio (
     id BIGINT NOT NULL AUTO_INCREMENT,
+    portfolio_id BIGINT NOT NULL DEFAULT 1 COMMENT '组合ID，1 为默认组合',
     coin VARCHAR(20),
     amount DECIMAL(18,4),
     percentage DECIMAL(6,2),
     value_usd DECIMAL(18,2),
     updated_at DATETIME,
     PRIMARY KEY (id),
-    UNIQUE INDEX coin (coin)
+    UNIQUE INDEX uk_portfolio_coin (portfolio_id, coin)
 ) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci;
 
 -- portfolio_history表 - 存储投资组合历史
@@ -98,9 +155,9 @@ CREATE TABLE report (
     id BIGINT NOT NULL AUTO_INCREMENT,
     generated_at DATETIME,
     status VARCHAR(20),
-    ai_judgment TEXT,
+    ai_judgment BLOB COMMENT 'UTF-8 文本，较长时压缩存储',
     risk_level VARCHAR(20),
-    review_remark TEXT,
+    review_remark BLOB COMMENT 'UTF-8 文本，较长时压缩存储',
     PRIMARY KEY (id)
 ) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci;
 
@@ -111,7 +168,7 @@ CREATE TABLE report_change (
     current_amount DECIMAL(18,4),
     proposed_amount DECIMAL(18,4),
     change_pct DECIMAL(7,2),
-    reason TEXT,
+    reason BLOB COMMENT 'UTF-8 文本，较长时压缩存储',
     report_id BIGINT,
     PRIMARY KEY (id),
     INDEX fk_report_change_report (report_id),
@@ -127,10 +184,16 @@ CREATE TABLE report_news (
     PRIMARY KEY (id),
     INDEX fk_report_news_news (news_id),
     INDEX fk_report_news_report (report_id),
-    CONSTRAINT fk_report_news_news FOREIGN KEY (news_id) REFERENCES news (id) ON DELETE NO ACTION ON UPDATE NO ACTION,
     CONSTRAINT fk_report_news_report FOREIGN KEY (report_id) REFERENCES report (id) ON DELETE NO ACTION ON UPDATE NO ACTION
 ) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci;
 
+-- id_generator表 - 主键分段分配（news/report_change/report_news/portfolio_history 使用 JPA TableGenerator）
+CREATE TABLE id_generator (
+    seq_name VARCHAR(64) NOT NULL COMMENT '序列名称（表名）',
+    next_val BIGINT NOT NULL COMMENT '当前已分配号段的上界',
+    PRIMARY KEY (seq_name)
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci;
+
 -- 插入初始数据
 -- 移除自增列的显式值，让数据库自动生成（更规范，避免冲突）
 INSERT INTO news (title, summary, coin, sentiment, source_url, published_at, is_read) VALUES 
@@ -197,5 +260,35 @@ INSERT INTO user_role (user_id, role_id) VALUES
 (1, 1), -- 普通用户分配普通查看员角色
 (2, 2); -- 管理员分配管理员角色
 
+-- 主键号段初始化：pooled 优化器把读到的值当作首个号段（大小 50）的上界向下分配，
+-- 因此至少要在 MAX(id) 之上留出一个号段，取 MAX(id) + 51 保证不与已有数据冲突
+-- 已有库升级时只需执行上面的 CREATE TABLE 与下面的 INSERT
+INSERT INTO id_generator (seq_name, next_val) SELECT 'news', COALESCE(MAX(id), 0) + 51 FROM news;
+INSERT INTO id_generator (seq_name, next_val) SELECT 'report_change', COALESCE(MAX(id), 0) + 51 FROM report_change;
+INSERT INTO id_generator (seq_name, next_val) SELECT 'report_news', COALESCE(MAX(id), 0) + 51 FROM report_news;
+INSERT INTO id_generator (seq_name, next_val) SELECT 'portfolio_history', COALESCE(MAX(id), 0) + 51 FROM portfolio_history;
+
+-- 已有库升级为按月分区（先执行上面的 CREATE TABLE news_archive）：
+-- 分区表不能被外键引用，必须先删除 report_news -> news 的外键 fk_report_news_news，否则下面的 PARTITION BY 会报错；
+-- 删除后由归档任务与新建报告之间的行锁保证引用完整（见 news 表上方的说明），fk_report_news_news 同名索引保留用于按新闻查报告
+-- ALTER TABLE report_news DROP FOREIGN KEY fk_report_news_news;
+-- ALTER TABLE news MODIFY published_at DATETIME NOT NULL, DROP PRIMARY KEY, ADD PRIMARY KEY (id, published_at);
+-- ALTER TABLE news PARTITION BY RANGE COLUMNS (published_at) (
+--     PARTITION p_history VALUES LESS THAN ('<当前月前一个月的首日>'),
+--     PARTITION p_future VALUES LESS THAN (MAXVALUE)
+-- );
+-- 之后的月分区由应用的归档任务自动补齐
+
+-- 已有库升级为压缩大文本列：TEXT 改为 BLOB 时原有内容按 UTF-8 字节保留，应用可直接读取未压缩的旧行，
+-- 之后写入或更新的长文本才会压缩存储
+-- ALTER TABLE news MODIFY summary BLOB;
+-- ALTER TABLE news_archive MODIFY summary BLOB;
+-- ALTER TABLE report MODIFY ai_judgment BLOB, MODIFY review_remark BLOB;
+-- ALTER TABLE report_change MODIFY reason BLOB;
+
+-- 已有库升级为多组合：原有持仓归入默认组合 1
+-- ALTER TABLE portfolio ADD COLUMN portfolio_id BIGINT NOT NULL DEFAULT 1 COMMENT '组合ID，1 为默认组合' AFTER id,
+--     DROP INDEX coin, ADD UNIQUE INDEX uk_portfolio_coin (portfolio_id, coin);
+
 -- 恢复外键检查
 SET FOREIGN_KEY_CHECKS = 1;
\ No newline at end of file
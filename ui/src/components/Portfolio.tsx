@@ -371,6 +371,7 @@ export default function Portfolio() {
                   dataKey="date" 
                   stroke="#64748b"
                   tick={{ fill: '#64748b' }}
+                  tickFormatter={(date: string) => date.slice(5)}
                 />
                 <YAxis 
                   stroke="#64748b"